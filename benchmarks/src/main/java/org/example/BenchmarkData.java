@@ -0,0 +1,208 @@
+package org.example;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Deterministic synthetic inputs for the benchmarks: Java sources, program output,
+ * screenshots, whole experiment lists, classroom repository trees and populated
+ * databases. Sizes are parameters; the same arguments always produce the same data.
+ */
+final class BenchmarkData {
+
+    private static final String[] TYPES = {"ArrayList", "HashMap", "LinkedList", "TreeSet", "Scanner", "StringBuilder", "Deque", "Optional"};
+    private static final String[] WORDS = {"result", "count", "index", "value", "total", "buffer", "node", "score", "name", "items"};
+
+    private BenchmarkData() {}
+
+    // ==========================================
+    // TEXT
+    // ==========================================
+    /** A student-style program of about {@code lines} lines: comments, strings, generics, annotations. */
+    static String javaProgram(int lines, long seed) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 48);
+        sb.append("import java.util.*;\n\n/**\n * Generated program ").append(seed).append("\n */\npublic class Main").append(seed).append(" {\n");
+        int written = 6, method = 0;
+        while (written < lines - 1) {
+            String type = TYPES[r.nextInt(TYPES.length)], word = WORDS[r.nextInt(WORDS.length)];
+            sb.append("\n    @SuppressWarnings(\"unchecked\")\n    static int method").append(method++).append("(int ").append(word).append(") {\n");
+            sb.append("        ").append(type).append("<Integer> ").append(word).append("s = new ").append(type).append("<>(); // ").append(type).append(" of ").append(word).append('\n');
+            written += 4;
+            int body = 3 + r.nextInt(8);
+            for (int i = 0; i < body && written < lines - 3; i++, written++) {
+                switch (r.nextInt(4)) {
+                    case 0: sb.append("        for (int i = 0; i < ").append(word).append("; i++) ").append(word).append(" += i * ").append(r.nextInt(100)).append(";\n"); break;
+                    case 1: sb.append("        System.out.println(\"").append(word).append(" = \" + ").append(word).append(" + '\\n');\n"); break;
+                    case 2: sb.append("        /* ").append(WORDS[r.nextInt(WORDS.length)]).append(" check */ if (").append(word).append(" > ").append(r.nextInt(1000)).append(") return -1;\n"); break;
+                    default: sb.append("        char c").append(i).append(" = '").append((char) ('a' + r.nextInt(26))).append("'; final String s").append(i).append(" = \"").append(word).append("\";\n");
+                }
+            }
+            sb.append("        return ").append(word).append(";\n    }\n");
+            written += 2;
+        }
+        return sb.append("}\n").toString();
+    }
+
+    /**
+     * Input that punishes backtracking highlighters: unterminated strings and comments on
+     * every line, long runs of escapes and comment openers, and a text block that never closes.
+     */
+    static String adversarialJava(int lines) {
+        StringBuilder sb = new StringBuilder(lines * 96);
+        for (int i = 0; i < lines; i++) {
+            switch (i % 4) {
+                case 0: sb.append("String s").append(i).append(" = \"").append("\\\"".repeat(30)).append('\n'); break;
+                case 1: sb.append("/* /* /* ").append("*".repeat(40)).append(" // \" ' \n"); break;
+                case 2: sb.append("char c = '").append("\\'".repeat(20)).append(" publicstaticvoidfinalclassinterface\n"); break;
+                default: sb.append("*/ \"\"\" ").append("\"".repeat(25)).append('\n');
+            }
+        }
+        return sb.append("\"\"\"\n").toString();
+    }
+
+    /** Console output of about {@code lines} lines, with the odd tab and a long line. */
+    static String programOutput(int lines, long seed) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 32);
+        for (int i = 0; i < lines; i++) {
+            String word = WORDS[r.nextInt(WORDS.length)];
+            if (i % 25 == 24) sb.append(word).append(":\t").append(String.valueOf(r.nextInt(10)).repeat(140)).append('\n');
+            else sb.append(word).append(" = ").append(r.nextInt(100_000)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // ==========================================
+    // IMAGES
+    // ==========================================
+    /** A {@code width x (width * 3 / 4)} PNG screenshot stand-in (gradient plus noise, so it compresses like a real one). */
+    static File screenshot(File dir, int width) {
+        File file = new File(dir, "screenshot-" + width + ".png");
+        if (file.exists()) return file;
+        int height = Math.max(1, width * 3 / 4);
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random r = new Random(width);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int g = 30 + (x * 180 / width) + r.nextInt(16);
+                img.setRGB(x, y, new Color(g / 2, g, Math.min(255, g + 20)).getRGB());
+            }
+        }
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        for (int y = 20; y < height; y += 18) g.drawString("value = " + y * 31, 10, y);
+        g.dispose();
+        try {
+            ImageIO.write(img, "png", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    // ==========================================
+    // EXPERIMENTS
+    // ==========================================
+    /** {@code count} full experiments; {@code imagePath} (may be null) is attached to every one. */
+    static List<Experiment> experiments(int count, int codeLines, int outputLines, String imagePath) {
+        List<Experiment> list = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String type = TYPES[i % TYPES.length];
+            Experiment exp = new Experiment(i, String.valueOf(i), "Program " + i + " using " + type, "01/08/2024",
+                    "To implement a program that uses " + type + ".", javaProgram(codeLines, i), "3\n1 2 3\n",
+                    programOutput(outputLines, i), imagePath);
+            exp.repoPath = "/benchmark/repo-" + i;
+            exp.contentHash = "benchmark-" + i;
+            list.add(exp);
+        }
+        return list;
+    }
+
+    static StudentInfo student() {
+        return new StudentInfo("Benchmark Student", "REG0001", "II / III", "");
+    }
+
+    // ==========================================
+    // REPOSITORIES
+    // ==========================================
+    /**
+     * Writes {@code count} GitHub Classroom checkouts under {@code parent}: README heading,
+     * autograding.json with two tests, a main class of {@code codeLines} lines among
+     * {@code sourceFiles} helpers spread over packages, plus .git and target noise.
+     */
+    static void repositories(File parent, int count, int sourceFiles, int codeLines) {
+        try {
+            for (int i = 1; i <= count; i++) {
+                Path repo = parent.toPath().resolve(String.format("exp-%03d-student", i));
+                write(repo.resolve("README.md"), "[![Review Assignment Due Date](badge.svg)](link)\n# Experiment " + i + ": Program " + i + "\n\nImplement it.\n");
+                write(repo.resolve(".github/classroom/autograding.json"), "{\"tests\": [" + autogradingTest(i, 1) + ", " + autogradingTest(i, 2) + "]}\n");
+                write(repo.resolve("src/main/java/org/lab/Main" + i + ".java"), "package org.lab;\n" + javaProgram(codeLines, i));
+                for (int f = 0; f < sourceFiles; f++) {
+                    write(repo.resolve("src/main/java/org/lab/pkg" + (f % 8) + "/Helper" + f + ".java"),
+                            "package org.lab.pkg" + (f % 8) + ";\nclass Helper" + f + " { static int value() { return " + f + "; } }\n");
+                }
+                write(repo.resolve(".git/HEAD"), "ref: refs/heads/main\n");
+                write(repo.resolve("target/classes/Main" + i + ".java"), "// stale copy\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String autogradingTest(int repo, int test) {
+        return "{\"name\": \"test " + test + "\", \"setup\": \"\", \"run\": \"java src/main/java/org/lab/Main" + repo + ".java\", "
+                + "\"input\": \"" + test + "\\n1 2 3\", \"output\": \"result = " + (repo * test) + "\\n\", "
+                + "\"comparison\": \"included\", \"timeout\": 10, \"points\": 1}";
+    }
+
+    private static void write(Path file, String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ==========================================
+    // DATABASES
+    // ==========================================
+    /** A fresh database at {@code file} holding {@code experiments}, written in one transaction. */
+    static Database database(File file, List<Experiment> experiments) throws SQLException {
+        Database db = Database.open(file, Database.DEFAULT_POOL_SIZE);
+        new ExperimentDao(db).upsertImported(experiments);
+        return db;
+    }
+
+    // ==========================================
+    // FILES
+    // ==========================================
+    static File tempDir(String prefix) {
+        try {
+            return Files.createTempDirectory("labrecord-bench-" + prefix).toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(File dir) {
+        if (dir == null || !dir.exists()) return;
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The database read paths. {@code allExperiments} loads every full row (what batch mode
+ * and the old getAllExperiments did); {@code tablePage} is what the GUI's
+ * loadDataFromDb costs now: one filtered COUNT plus the first visible page;
+ * {@code streamBodies} is the renderer's streaming read; {@code search} one full-text query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int rows;
+
+    @Param({"60"})
+    int codeLines;
+
+    private File scratch;
+    private Database db;
+    private ExperimentDao dao;
+    private SearchIndex search;
+    private final ExperimentDao.Query query = new ExperimentDao.Query("", ExperimentDao.SortColumn.NUMBER, true);
+
+    @Setup
+    public void populate() throws SQLException {
+        scratch = BenchmarkData.tempDir("db");
+        db = BenchmarkData.database(new File(scratch, "bench.db"), BenchmarkData.experiments(rows, codeLines, 20, null));
+        dao = new ExperimentDao(db);
+        search = new SearchIndex(db);
+    }
+
+    @TearDown
+    public void cleanUp() {
+        db.close();
+        BenchmarkData.deleteRecursively(scratch);
+    }
+
+    @Benchmark
+    public List<Experiment> allExperiments() throws SQLException {
+        return dao.listAll();
+    }
+
+    @Benchmark
+    public List<Experiment> tablePage() throws SQLException {
+        dao.count(query);
+        return dao.listSummaries(query, 0, ExperimentTableModel.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int streamBodies() throws SQLException {
+        int n = 0;
+        try (ExperimentSource source = dao.openSource()) {
+            source.index();
+            while (source.nextBody() != null) n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public SearchIndex.Result search() throws SQLException {
+        return search.search("ArrayList", SearchIndex.DEFAULT_LIMIT);
+    }
+}
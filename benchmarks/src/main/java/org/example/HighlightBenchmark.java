@@ -0,0 +1,55 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lowagie.text.DocumentException;
+
+/**
+ * The highlighted code block: {@code lex} is the tokenizer alone, {@code codeBlock} the
+ * whole {@link RecordRenderer#addHighlightedCodeBlock} (tokens, chunks, table layout).
+ * The adversarial corpus checks that pathological input stays linear.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HighlightBenchmark {
+
+    @Param({"20", "200", "2000"})
+    int codeLines;
+
+    @Param({"typical", "adversarial"})
+    String corpus;
+
+    private String code;
+    private final RecordRenderer renderer = new RecordRenderer();
+
+    @Setup
+    public void generate() {
+        code = corpus.equals("adversarial") ? BenchmarkData.adversarialJava(codeLines) : BenchmarkData.javaProgram(codeLines, 42);
+    }
+
+    @Benchmark
+    public JavaLexer.Tokens lex() {
+        return JavaLexer.tokenize(code);
+    }
+
+    @Benchmark
+    public void codeBlock(PdfSink sink) throws DocumentException {
+        renderer.addHighlightedCodeBlock(sink.doc, code);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Repository import against generated classroom checkouts: {@code singleRepository} is
+ * what "Import from Local Repo" parses, {@code bulkImport} the parallel folder scan. The
+ * trees are written once per trial, so after warmup they are served from the page cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"50"})
+    int repositories;
+
+    @Param({"5", "200"})
+    int sourceFiles;
+
+    @Param({"200"})
+    int codeLines;
+
+    private File parent;
+    private File firstRepository;
+
+    @Setup
+    public void generate() {
+        parent = BenchmarkData.tempDir("import");
+        BenchmarkData.repositories(parent, repositories, sourceFiles, codeLines);
+        firstRepository = new File(parent, "exp-001-student");
+    }
+
+    @TearDown
+    public void cleanUp() {
+        BenchmarkData.deleteRecursively(parent);
+    }
+
+    @Benchmark
+    public Experiment singleRepository() {
+        return RepositoryImporter.parse(firstRepository, "1");
+    }
+
+    @Benchmark
+    public List<RepositoryImporter.Outcome> bulkImport() throws InterruptedException {
+        return RepositoryImporter.parseAll(parent, 1);
+    }
+}
@@ -0,0 +1,43 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lowagie.text.DocumentException;
+
+// --- RecordRenderer.addOutputBlock for short, long and very long program output ---
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBlockBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int outputLines;
+
+    private String output;
+    private final RecordRenderer renderer = new RecordRenderer();
+
+    @Setup
+    public void generate() {
+        output = BenchmarkData.programOutput(outputLines, 42);
+    }
+
+    @Benchmark
+    public void outputBlock(PdfSink sink) throws DocumentException {
+        renderer.addOutputBlock(sink.doc, output);
+    }
+}
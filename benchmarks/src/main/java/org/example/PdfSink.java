@@ -0,0 +1,36 @@
+package org.example;
+
+import java.io.OutputStream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.pdf.PdfWriter;
+
+/**
+ * An open A4 document, with the renderer's margins, whose PDF bytes are discarded. Block
+ * benchmarks add to it; a fresh one per iteration keeps page count from drifting.
+ */
+@State(Scope.Thread)
+public class PdfSink {
+
+    Document doc;
+
+    @Setup(Level.Iteration)
+    public void open() throws DocumentException {
+        doc = new Document(PageSize.A4, 70, 70, 50, 50);
+        PdfWriter.getInstance(doc, OutputStream.nullOutputStream());
+        doc.open();
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        doc.close();
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lowagie.text.DocumentException;
+
+/**
+ * A complete record (title page, index, every section) written to a discarding stream,
+ * without the fragment cache so every section is laid out. With {@code imageWidth > 0}
+ * each experiment carries a screenshot of that width, run through an {@link ImagePipeline}
+ * in a scratch directory (prepared once, then served from its disk cache). {@code parallelism}
+ * is the number of section workers (1 lays sections out directly into the record).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int experiments;
+
+    @Param({"60"})
+    int codeLines;
+
+    @Param({"20"})
+    int outputLines;
+
+    @Param({"0"})
+    int imageWidth;
+
+    @Param({"1"})
+    int parallelism;
+
+    private File scratch;
+    private List<Experiment> rows;
+    private RecordRenderer renderer;
+
+    @Setup
+    public void generate() {
+        scratch = BenchmarkData.tempDir("render");
+        String image = imageWidth > 0 ? BenchmarkData.screenshot(scratch, imageWidth).getAbsolutePath() : null;
+        rows = BenchmarkData.experiments(experiments, codeLines, outputLines, image);
+        ImagePipeline images = imageWidth > 0
+                ? new ImagePipeline(new File(scratch, "images"), ImagePipeline.DEFAULT_DPI, ImagePipeline.DEFAULT_QUALITY) : null;
+        renderer = new RecordRenderer(StylePalette.DEFAULT, null, images, parallelism);
+    }
+
+    @TearDown
+    public void cleanUp() {
+        BenchmarkData.deleteRecursively(scratch);
+    }
+
+    @Benchmark
+    public RecordRenderer.RenderStats record() throws DocumentException, IOException, SQLException {
+        return renderer.render(OutputStream.nullOutputStream(), BenchmarkData.student(), rows);
+    }
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+import java.io.File;
+
+// --- Locations of the per-user workspace shared by the GUI and batch mode ---
+final class AppPaths {
+
+    private AppPaths() {}
+
+    // Create a dedicated hidden folder in the user's home directory
+    static File appDir() {
+        File appDir = new File(System.getProperty("user.home"), ".lab_record_app");
+        if (!appDir.exists()) {
+            appDir.mkdirs(); // Create the directory if it doesn't exist
+        }
+        return appDir;
+    }
+
+    static File databaseFile() {
+        return new File(appDir(), "lab_records.db");
+    }
+
+    // Where records go unless the user picked a folder: the Desktop, or home when there is none
+    static File defaultOutputDir() {
+        File home = new File(System.getProperty("user.home"));
+        File desktop = new File(home, "Desktop");
+        return desktop.isDirectory() ? desktop : home;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Output stream for a file that must never be seen half-written (generated records).
+ * <p>
+ * Bytes go to a hidden temp file in the target's directory through a large direct
+ * buffer, so iText's many small writes become a few large channel writes. {@link #commit()}
+ * fsyncs the temp file and renames it over the target in one atomic step; closing without
+ * committing (an exception, a cancelled render) deletes the temp file and leaves any
+ * previous version of the target untouched.
+ * <pre>
+ * try (AtomicFileOutput out = new AtomicFileOutput(pdf)) {
+ *     render(out);
+ *     out.commit();
+ * }
+ * </pre>
+ */
+final class AtomicFileOutput extends OutputStream {
+
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean committed, closed;
+
+    AtomicFileOutput(File target) throws IOException {
+        this.target = target.toPath().toAbsolutePath();
+        Path dir = this.target.getParent();
+        Files.createDirectories(dir);
+        // Same directory as the target, so the final rename never crosses file systems
+        Path candidate;
+        FileChannel opened;
+        while (true) {
+            candidate = dir.resolve("." + target.getName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                // Default attributes, unlike Files.createTempFile's owner-only rw-------: the record
+                // gets the permissions (umask) any other new file there would
+                opened = FileChannel.open(candidate, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // another writer's temp file; pick a new name
+            }
+        }
+        temp = candidate;
+        channel = opened;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) drain();
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len > buffer.remaining()) {
+            drain();
+            if (len >= BUFFER_SIZE) { // larger than the buffer: no point copying it through
+                writeFully(ByteBuffer.wrap(b, off, len));
+                return;
+            }
+        }
+        buffer.put(b, off, len);
+    }
+
+    /** Makes the file durable and visible under its final name. */
+    void commit() throws IOException {
+        ensureOpen();
+        drain();
+        channel.force(true);
+        channel.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = closed = true;
+        syncDirectory(target.getParent());
+    }
+
+    // Without commit() this abandons the output
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    boolean isCommitted() { return committed; }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) channel.write(src);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Output already " + (committed ? "committed" : "closed") + ": " + target);
+    }
+
+    // Persists the rename itself; not every platform can open a directory, and the file is already safe
+    private static void syncDirectory(Path dir) {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException | UnsupportedOperationException ignore) {
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless entry point that renders a record for every student in a roster.
+ * <p>
+ * Usage: {@code --batch --roster students.csv --out <dir> [--concurrency N] [--logo path] [--stream] [--no-cache]
+ * [--image-dpi N] [--image-quality Q] [--section-threads N] [--line-numbers] [--max-code-lines N]
+ * [--max-output-lines N] [--force]}
+ * <p>
+ * Each roster line is {@code name,reg_no,year[,db_path]}. Students without a db_path are
+ * rendered from the shared workspace database. Every record is a job in the workspace's
+ * {@link JobQueue}: {@code --concurrency} workers on virtual threads claim jobs until
+ * none is pending, and a render that fails for a transient reason (a busy database, an
+ * output file the file system refuses for now) is retried with backoff. Re-running the
+ * same command after a crash or a failed run resumes it: records whose inputs are
+ * unchanged and whose file still exists are skipped, unless {@code --force} is given.
+ * With {@code --stream} each render pulls its experiments row by row from SQLite instead
+ * of sharing one fully loaded list per database. Rendered experiment sections go through
+ * the shared {@link FragmentCache}, so an experiment common to the whole class is laid
+ * out once rather than once per student. Records already run side by side, so each one's
+ * sections are laid out sequentially unless {@code --section-threads} asks for more
+ * (useful for short rosters). Each PDF is written with a {@code .metrics.json} next to it
+ * (see {@link PhaseMetrics}). {@code --line-numbers} and {@code --max-code-lines} set the
+ * {@link CodeListing} policy, {@code --max-output-lines} the {@link OutputText} budget.
+ */
+public class BatchGenerator {
+
+    static final int DEFAULT_CONCURRENCY = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    // --- One roster line ---
+    static class RosterEntry {
+        final String name, regNo, year, dbPath;
+
+        RosterEntry(String name, String regNo, String year, String dbPath) {
+            this.name = name; this.regNo = regNo; this.year = year; this.dbPath = dbPath;
+        }
+    }
+
+    // --- Outcome of one student's render ---
+    static class Result {
+        final RosterEntry student;
+        final String outputPath;
+        final String error;
+        final long millis;
+        final RecordRenderer.RenderStats stats;
+        final boolean retryable;
+
+        Result(RosterEntry student, String outputPath, String error, long millis, RecordRenderer.RenderStats stats, boolean retryable) {
+            this.student = student; this.outputPath = outputPath; this.error = error; this.millis = millis; this.stats = stats;
+            this.retryable = retryable;
+        }
+
+        boolean ok() { return error == null; }
+    }
+
+    private final File outputDir;
+    private final int concurrency;
+    private final String logoPath;
+    private final boolean streaming;
+    private final RecordRenderer renderer;
+    private final JobQueue jobs;
+    private final boolean force;
+    private final ConcurrentHashMap<String, List<Experiment>> experimentsByDb = new ConcurrentHashMap<>();
+    private final Map<String, Database> databases = new HashMap<>();
+    private final Map<String, String> fingerprints = new HashMap<>();
+    private int unchanged;
+
+    // The renderer holds no per-record state, so every virtual thread shares it (and its caches)
+    BatchGenerator(File outputDir, int concurrency, String logoPath, boolean streaming, RecordRenderer renderer,
+                   JobQueue jobs, boolean force) {
+        this.outputDir = outputDir;
+        this.concurrency = concurrency;
+        this.logoPath = logoPath;
+        this.streaming = streaming;
+        this.renderer = renderer;
+        this.jobs = jobs;
+        this.force = force;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        String roster = null, out = null, logo = null;
+        int concurrency = DEFAULT_CONCURRENCY, sectionThreads = 1, maxCodeLines = CodeListing.DEFAULT_MAX_LINES;
+        int maxOutputLines = OutputText.DEFAULT.headLines + OutputText.DEFAULT.tailLines;
+        boolean streaming = false, useCache = true, lineNumbers = false, force = false;
+        int imageDpi = ImagePipeline.DEFAULT_DPI;
+        float imageQuality = ImagePipeline.DEFAULT_QUALITY;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--roster": roster = args[++i]; break;
+                case "--out": out = args[++i]; break;
+                case "--logo": logo = args[++i]; break;
+                case "--concurrency": concurrency = Integer.parseInt(args[++i]); break;
+                case "--stream": streaming = true; break;
+                case "--no-cache": useCache = false; break;
+                case "--image-dpi": imageDpi = Integer.parseInt(args[++i]); break;
+                case "--image-quality": imageQuality = Float.parseFloat(args[++i]); break;
+                case "--section-threads": sectionThreads = Integer.parseInt(args[++i]); break;
+                case "--line-numbers": lineNumbers = true; break;
+                case "--max-code-lines": maxCodeLines = Integer.parseInt(args[++i]); break;
+                case "--max-output-lines": maxOutputLines = Integer.parseInt(args[++i]); break;
+                case "--force": force = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+        if (roster == null || out == null || concurrency < 1 || sectionThreads < 1 || maxCodeLines < 1 || maxOutputLines < 1) {
+            printUsage();
+            System.exit(2);
+        }
+
+        try (Database workspace = Database.open(AppPaths.databaseFile(), 2)) {
+            List<RosterEntry> students = readRoster(new File(roster));
+            File outputDir = new File(out);
+            if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+                throw new IOException("Cannot create output directory: " + outputDir);
+            }
+            if (logo == null) logo = readSetting(AppPaths.databaseFile().getAbsolutePath(), "logo_path");
+
+            FragmentCache fragmentCache = useCache ? FragmentCache.openDefault() : null;
+            RecordRenderer renderer = new RecordRenderer(fragmentCache, ImagePipeline.create(imageDpi, imageQuality), sectionThreads,
+                    new CodeListing(lineNumbers, maxCodeLines), new OutputText(maxOutputLines));
+            BatchGenerator generator = new BatchGenerator(outputDir, concurrency, logo, streaming, renderer,
+                    new JobQueue(workspace), force);
+            long start = System.nanoTime();
+            List<Result> results = generator.run(students);
+            long elapsed = System.nanoTime() - start;
+
+            int failures = printReport(results, generator.unchanged, elapsed);
+            if (fragmentCache != null) System.out.println("Fragment cache: " + fragmentCache.statsLine());
+            System.exit(failures == 0 ? 0 : 1);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: --batch --roster <students.csv> --out <dir> [--concurrency N] [--logo <path>] [--stream] [--no-cache]");
+        System.err.println("       [--image-dpi N] [--image-quality 0.1-1.0] [--section-threads N] [--line-numbers] [--max-code-lines N]");
+        System.err.println("       [--max-output-lines N] [--force]");
+        System.err.println("Roster lines: name,reg_no,year[,db_path]");
+    }
+
+    // ==========================================
+    // JOB QUEUE
+    // ==========================================
+    /**
+     * Queues a job per student as a new batch, then runs {@code concurrency} workers until none
+     * of its jobs is pending. Returns the outcome of every job run, in queue order, then a
+     * failure for every student whose output file an earlier roster line already claimed
+     * (same reg no, or one that sanitizes to the same file name); unchanged records are only
+     * counted, and jobs of other rosters are left alone.
+     */
+    List<Result> run(List<RosterEntry> students) throws InterruptedException, SQLException {
+        Map<Long, Result> results = new ConcurrentSkipListMap<>();
+        List<Result> duplicates = new ArrayList<>();
+        try {
+            List<JobQueue.Spec> specs = new ArrayList<>();
+            // Keyed case-insensitively: on Windows and macOS "a_1" and "A_1" are one file too
+            Map<String, RosterEntry> claimed = new HashMap<>();
+            for (RosterEntry entry : students) {
+                File target = new File(outputDir, StudentInfo.pdfFileName(entry.regNo));
+                RosterEntry first = claimed.putIfAbsent(target.getName().toLowerCase(Locale.ROOT), entry);
+                if (first != null) {
+                    duplicates.add(new Result(entry, null, "same output file as " + first.name + " (" + first.regNo + "): "
+                            + target.getName(), 0, null, false));
+                    continue;
+                }
+                specs.add(new JobQueue.Spec(target, entry.name, entry.regNo, entry.year, entry.dbPath, logoPath, inputHash(entry)));
+            }
+            unchanged = jobs.enqueue(specs, force);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrency; i++) executor.submit(() -> work(results));
+            }
+        } finally {
+            closeDatabases(); // after close() has waited for every worker
+        }
+        if (Thread.interrupted()) throw new InterruptedException();
+        List<Result> all = new ArrayList<>(results.values());
+        all.addAll(duplicates);
+        return all;
+    }
+
+    // One worker: claim, render, record; waits out retry delays while jobs are still pending
+    private void work(Map<Long, Result> results) {
+        try {
+            while (true) {
+                JobQueue.Job job = jobs.claim();
+                if (job == null) {
+                    long due = jobs.millisUntilNextDue();
+                    if (due < 0) return; // jobs still running elsewhere are retried by their own worker
+                    Thread.sleep(Math.max(due, 50));
+                    continue;
+                }
+                RosterEntry entry = new RosterEntry(job.studentName, job.regNo, job.year, job.dbPath);
+                Result r = renderOne(entry, new File(job.outputPath), job.logoPath);
+                if (r.ok()) {
+                    jobs.complete(job, r.millis);
+                } else if (jobs.fail(job, r.millis, r.error, r.retryable)) {
+                    System.err.printf("Retrying %s in %d s (attempt %d of %d failed): %s%n", entry.regNo,
+                            JobQueue.backoffMillis(job.attempts) / 1000, job.attempts, JobQueue.MAX_ATTEMPTS, r.error);
+                    continue;
+                }
+                results.put(job.id, r);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            // Whatever this worker held stays running in the table and is picked up again by the next run
+            System.err.println("Job queue worker stopped: " + e.getMessage());
+        }
+    }
+
+    private Result renderOne(RosterEntry entry, File target, String logoPath) {
+        long start = System.nanoTime();
+        StudentInfo student = new StudentInfo(entry.name, entry.regNo, entry.year, logoPath);
+        try {
+            RecordRenderer.RenderStats stats;
+            if (streaming) {
+                try (ExperimentSource source = new ExperimentDao(databaseFor(entry)).openSource();
+                     AtomicFileOutput out = new AtomicFileOutput(target)) {
+                    stats = renderer.render(out, student, source, RecordRenderer.NO_PROGRESS);
+                    out.commit();
+                }
+            } else {
+                List<Experiment> experiments = experimentsFor(entry);
+                if (experiments.isEmpty()) {
+                    return new Result(entry, null, "no experiments in " + dbPathFor(entry), elapsedMillis(start), null, false);
+                }
+                try (AtomicFileOutput out = new AtomicFileOutput(target)) {
+                    stats = renderer.render(out, student, experiments);
+                    out.commit();
+                }
+            }
+            try {
+                stats.metrics.writeJson(target);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics for " + target.getName() + ": " + e.getMessage());
+            }
+            return new Result(entry, target.getAbsolutePath(), null, elapsedMillis(start), stats, false);
+        } catch (Exception e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new Result(entry, null, message, elapsedMillis(start), null, isTransient(e, target));
+        }
+    }
+
+    /**
+     * Worth another attempt: SQLite busy or locked, or the file system refusing the output
+     * (a viewer holding the old PDF open, a permission or sharing error on its directory).
+     * A missing input, a malformed file or a missing database fails the same way every
+     * time, so anything else is permanent.
+     */
+    static boolean isTransient(Throwable e, File output) {
+        Path outputDir = output.getAbsoluteFile().toPath().getParent();
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof FileSystemException && !(t instanceof NoSuchFileException) && !(t instanceof FileAlreadyExistsException)) {
+                FileSystemException fse = (FileSystemException) t;
+                if (isIn(outputDir, fse.getFile()) || isIn(outputDir, fse.getOtherFile())) return true;
+            }
+            if (t instanceof SQLException) {
+                int code = ((SQLException) t).getErrorCode() & 0xFF; // primary result code
+                if (code == 5 || code == 6) return true;               // SQLITE_BUSY, SQLITE_LOCKED
+            }
+        }
+        return false;
+    }
+
+    // The output and its temp file live directly in the output directory
+    private static boolean isIn(Path dir, String file) {
+        if (file == null) return false;
+        Path parent = Paths.get(file).toAbsolutePath().getParent();
+        return parent != null && parent.equals(dir);
+    }
+
+    /**
+     * What a record is rendered from: the student line, the logo file, the renderer's
+     * settings and every experiment row of its database. Null when the database cannot
+     * be read, so the job always runs (and reports why).
+     */
+    private String inputHash(RosterEntry entry) {
+        String rows;
+        try {
+            rows = fingerprintFor(entry);
+        } catch (SQLException e) {
+            return null;
+        }
+        MessageDigest md = Digests.sha256();
+        Digests.update(md, renderer.signature());
+        Digests.update(md, entry.name);
+        Digests.update(md, entry.regNo);
+        Digests.update(md, entry.year);
+        Digests.update(md, logoPath);
+        if (logoPath != null && !logoPath.trim().isEmpty()) {
+            File logo = new File(logoPath);
+            Digests.update(md, logo.lastModified() + ":" + logo.length());
+        }
+        Digests.update(md, rows);
+        return Digests.toHex(md.digest());
+    }
+
+    private String fingerprintFor(RosterEntry entry) throws SQLException {
+        String dbPath = dbPathFor(entry);
+        String rows = fingerprints.get(dbPath);
+        if (rows == null) {
+            rows = new ExperimentDao(databaseFor(entry)).fingerprint();
+            fingerprints.put(dbPath, rows);
+        }
+        return rows;
+    }
+
+    // Students sharing a database share one loaded (read-only) experiment list
+    private List<Experiment> experimentsFor(RosterEntry entry) throws SQLException {
+        String dbPath = dbPathFor(entry);
+        List<Experiment> cached = experimentsByDb.get(dbPath);
+        if (cached != null) return cached;
+        List<Experiment> loaded = new ExperimentDao(databaseFor(entry)).listAll();
+        List<Experiment> previous = experimentsByDb.putIfAbsent(dbPath, loaded);
+        return previous != null ? previous : loaded;
+    }
+
+    /**
+     * One pool per database file, sized to the concurrency cap so every in-flight
+     * streaming render can hold its own connection. Opened on first use, closed by run().
+     */
+    private synchronized Database databaseFor(RosterEntry entry) throws SQLException {
+        String dbPath = dbPathFor(entry);
+        Database db = databases.get(dbPath);
+        if (db == null) {
+            db = Database.openExisting(new File(dbPath), concurrency);
+            databases.put(dbPath, db);
+        }
+        return db;
+    }
+
+    private synchronized void closeDatabases() {
+        for (Database db : databases.values()) db.close();
+        databases.clear();
+    }
+
+    private String dbPathFor(RosterEntry entry) {
+        return entry.dbPath != null ? entry.dbPath : AppPaths.databaseFile().getAbsolutePath();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static int printReport(List<Result> results, int unchanged, long elapsedNanos) {
+        int failures = 0;
+        for (Result r : results) {
+            if (r.ok()) {
+                System.out.printf("OK    %-15s %-30s %6d ms  %s  [%s]%n", r.student.regNo, r.student.name, r.millis, r.outputPath,
+                        r.stats.imageSummary());
+                System.out.printf("      %s%n", r.stats.metrics.summary());
+            } else {
+                failures++;
+                System.out.printf("FAIL  %-15s %-30s %6d ms  %s%n", r.student.regNo, r.student.name, r.millis, r.error);
+            }
+        }
+        double seconds = elapsedNanos / 1e9;
+        int succeeded = results.size() - failures;
+        System.out.printf("%d generated, %d failed, %d unchanged (skipped) in %.2f s (%.2f records/sec)%n",
+                succeeded, failures, unchanged, seconds, seconds > 0 ? succeeded / seconds : 0);
+        return failures;
+    }
+
+    // ==========================================
+    // ROSTER & DATABASE INPUT
+    // ==========================================
+    static List<RosterEntry> readRoster(File file) throws IOException {
+        List<RosterEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] parts = line.split(",", -1);
+                if (parts.length < 3) throw new IOException("Malformed roster line: " + line);
+                if (parts[0].trim().equalsIgnoreCase("name")) continue; // header row
+
+                String dbPath = parts.length > 3 && !parts[3].trim().isEmpty() ? parts[3].trim() : null;
+                entries.add(new RosterEntry(parts[0].trim(), parts[1].trim(), parts[2].trim(), dbPath));
+            }
+        }
+        return entries;
+    }
+
+    private static String readSetting(String dbPath, String key) {
+        if (!new File(dbPath).exists()) return null;
+        try (Database db = Database.openExisting(new File(dbPath), 1)) {
+            return new SettingsDao(db).get(key);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
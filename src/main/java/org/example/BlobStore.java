@@ -0,0 +1,248 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.sqlite.Function;
+
+/**
+ * Content-addressed store for the large text columns (code, input, output).
+ * <p>
+ * Each distinct text is stored once in {@code blobs}, keyed by its SHA-256 and
+ * Deflate-compressed when that saves space; experiments hold only the hashes. A class
+ * where every student imports the same starter program stores it once instead of once
+ * per row, and summary queries (table, index page) no longer drag those pages through
+ * the cache at all.
+ * <p>
+ * Text is inflated inside SQL by {@code lab_text(data, encoding)}, registered on every
+ * pooled connection, and only the body queries (renderer, edit dialog) select it.
+ * A blob is deleted once no row references it: the hashes an edit or delete let go of
+ * are checked when the search index's change log is applied ({@link #release}), and
+ * everything is swept once after the inline text migration.
+ */
+final class BlobStore {
+
+    static final String INFLATE_FUNCTION = "lab_text";
+
+    private static final int RAW = 0;
+    private static final int DEFLATE = 1;
+    private static final int MIN_COMPRESS_BYTES = 64; // below this Deflate's overhead usually wins
+
+    private static final String EXISTS = "SELECT 1 FROM blobs WHERE hash = ?";
+    private static final String INSERT = "INSERT OR IGNORE INTO blobs(hash, size, encoding, data) VALUES(?,?,?,?)";
+
+    // --- Logical vs stored size of everything the experiments reference ---
+    static final class Report {
+        final int uniqueBlobs;
+        final long references;
+        final long textBytes;
+        final long storedBytes;
+
+        Report(int uniqueBlobs, long references, long textBytes, long storedBytes) {
+            this.uniqueBlobs = uniqueBlobs; this.references = references;
+            this.textBytes = textBytes; this.storedBytes = storedBytes;
+        }
+
+        String summary() {
+            return String.format("%d text field(s) stored as %d blob(s): %.1f KB of text in %.1f KB (saved %.1f KB)",
+                    references, uniqueBlobs, textBytes / 1024.0, storedBytes / 1024.0, (textBytes - storedBytes) / 1024.0);
+        }
+    }
+
+    private BlobStore() {}
+
+    // ==========================================
+    // SCHEMA & SQL FUNCTION
+    // ==========================================
+    static void createSchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS blobs (" +
+                "hash TEXT PRIMARY KEY, " +
+                "size INTEGER NOT NULL, " +     // UTF-8 length of the text
+                "encoding INTEGER NOT NULL, " + // 0 = raw UTF-8, 1 = Deflate
+                "data BLOB NOT NULL)");
+    }
+
+    // Function objects are not shareable across connections, so each gets its own
+    static void registerFunctions(Connection conn) throws SQLException {
+        Function.create(conn, INFLATE_FUNCTION, new Function() {
+            @Override
+            protected void xFunc() throws SQLException {
+                if (value_type(0) == 5 /* SQLITE_NULL */) {
+                    result();
+                    return;
+                }
+                byte[] data = value_blob(0);
+                try {
+                    result(decode(data != null ? data : new byte[0], value_int(1))); // zero-length blobs read back as null
+                } catch (DataFormatException e) {
+                    error("corrupt blob: " + e.getMessage());
+                }
+            }
+        }, 2, Function.FLAG_DETERMINISTIC);
+    }
+
+    // Lets release() look up the rows still referencing a hash instead of scanning the table
+    static void createReferenceIndexes(Statement stmt) throws SQLException {
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_experiments_code_hash ON experiments(code_hash)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_experiments_input_hash ON experiments(input_hash)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_experiments_output_hash ON experiments(output_hash)");
+    }
+
+    // SQL expression for the text of a blob joined as {@code alias}
+    static String textOf(String alias) {
+        return INFLATE_FUNCTION + "(" + alias + ".data, " + alias + ".encoding)";
+    }
+
+    // ==========================================
+    // WRITES
+    // ==========================================
+    /**
+     * Stores {@code text} unless an identical blob exists and returns its hash (null for
+     * null text). Run inside the transaction that writes the referencing row.
+     */
+    static String put(Database.PooledConnection c, String text) throws SQLException {
+        if (text == null) return null;
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        String hash = Digests.sha256Hex(utf8);
+
+        PreparedStatement exists = c.prepare(EXISTS);
+        exists.setString(1, hash);
+        try (ResultSet rs = exists.executeQuery()) {
+            if (rs.next()) return hash; // duplicate content: nothing to compress or write
+        }
+
+        byte[] compressed = utf8.length >= MIN_COMPRESS_BYTES ? deflate(utf8) : null;
+        boolean useDeflate = compressed != null && compressed.length < utf8.length;
+        PreparedStatement insert = c.prepare(INSERT);
+        insert.setString(1, hash);
+        insert.setInt(2, utf8.length);
+        insert.setInt(3, useDeflate ? DEFLATE : RAW);
+        insert.setBytes(4, useDeflate ? compressed : utf8);
+        insert.executeUpdate();
+        return hash;
+    }
+
+    // ==========================================
+    // MIGRATION & MAINTENANCE
+    // ==========================================
+    /**
+     * Moves text still stored inline on experiment rows (databases from before the blob
+     * store, or rows written by an older build) into blobs. Returns the rows moved.
+     */
+    static int migrateInlineText(Database.PooledConnection c) throws SQLException {
+        // Ids first: the rows are rewritten below, so no cursor stays open over them
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = c.connection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM experiments WHERE code IS NOT NULL OR input IS NOT NULL OR output IS NOT NULL")) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        if (ids.isEmpty()) return 0;
+
+        Connection conn = c.connection();
+        conn.setAutoCommit(false);
+        try (PreparedStatement select = conn.prepareStatement("SELECT code, input, output FROM experiments WHERE id = ?");
+             PreparedStatement update = conn.prepareStatement("UPDATE experiments SET " +
+                     "code_hash = COALESCE(?, code_hash), input_hash = COALESCE(?, input_hash), output_hash = COALESCE(?, output_hash), " +
+                     "code = NULL, input = NULL, output = NULL WHERE id = ?")) {
+            for (int id : ids) {
+                select.setInt(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) continue;
+                    update.setString(1, put(c, rs.getString("code")));
+                    update.setString(2, put(c, rs.getString("input")));
+                    update.setString(3, put(c, rs.getString("output")));
+                }
+                update.setInt(4, id);
+                update.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return ids.size();
+    }
+
+    // Deletes blobs no experiment references any more (after edits, deletes and re-imports).
+    // Old values waiting in the search index's change log still count: the index needs their text.
+    static int sweep(Statement stmt) throws SQLException {
+        return stmt.executeUpdate("DELETE FROM blobs WHERE hash NOT IN (" +
+                "SELECT code_hash FROM experiments WHERE code_hash IS NOT NULL UNION " +
+                "SELECT input_hash FROM experiments WHERE input_hash IS NOT NULL UNION " +
+                "SELECT output_hash FROM experiments WHERE output_hash IS NOT NULL UNION " +
+                "SELECT code_hash FROM experiments_fts_log WHERE code_hash IS NOT NULL UNION " +
+                "SELECT input_hash FROM experiments_fts_log WHERE input_hash IS NOT NULL UNION " +
+                "SELECT output_hash FROM experiments_fts_log WHERE output_hash IS NOT NULL)");
+    }
+
+    /**
+     * Deletes the blobs among {@code hashQuery}'s results (one hash column) that no experiment
+     * references any more; index lookups per hash, so the cost follows the rows changed.
+     * Returns the blobs deleted.
+     */
+    static int release(Database.PooledConnection c, String hashQuery) throws SQLException {
+        return c.prepare("DELETE FROM blobs WHERE hash IN (" + hashQuery + ") " +
+                "AND NOT EXISTS (SELECT 1 FROM experiments WHERE code_hash = blobs.hash) " +
+                "AND NOT EXISTS (SELECT 1 FROM experiments WHERE input_hash = blobs.hash) " +
+                "AND NOT EXISTS (SELECT 1 FROM experiments WHERE output_hash = blobs.hash)").executeUpdate();
+    }
+
+    static Report report(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT " +
+                "(SELECT COUNT(*) FROM blobs), " +
+                "(SELECT COALESCE(SUM(length(data)), 0) FROM blobs), " +
+                "COUNT(b.hash), COALESCE(SUM(b.size), 0) " +
+                "FROM (SELECT code_hash AS h FROM experiments UNION ALL SELECT input_hash FROM experiments " +
+                "UNION ALL SELECT output_hash FROM experiments) r JOIN blobs b ON b.hash = r.h")) {
+            rs.next();
+            return new Report(rs.getInt(1), rs.getLong(3), rs.getLong(4), rs.getLong(2));
+        }
+    }
+
+    // ==========================================
+    // ENCODING
+    // ==========================================
+    private static String decode(byte[] data, int encoding) throws DataFormatException {
+        if (encoding == RAW) return new String(data, StandardCharsets.UTF_8);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) throw new DataFormatException("truncated");
+                out.write(buf, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) out.write(buf, 0, deflater.deflate(buf));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Element;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPTableEvent;
+
+/**
+ * How program listings are laid out: a table of small line groups rather than one cell
+ * holding the whole program.
+ * <p>
+ * iText splits a tall cell across pages by laying out everything still left in it again on
+ * every page, which grows quadratically with the line count (and could clip the block). Here
+ * each row holds {@link #LINES_PER_ROW} lines and is moved whole to the next page when it
+ * does not fit, so layout cost is linear. The box is drawn around each page's part of the
+ * table by a table event. A blank header row repeats at the top of every part as padding, and
+ * on pages after the first the event writes a "(continued)" caption into it (iText 2.1.7 does
+ * not honour {@code setSkipFirstHeader} for tables added to a document).
+ * <p>
+ * The policy: optional line numbers, and for pathological inputs a {@code maxLines} cap
+ * that keeps the first lines and the last {@code tailLines}, with a marker counting the
+ * lines left out in between.
+ */
+final class CodeListing {
+
+    static final int LINES_PER_ROW = 5;
+    static final float CAPTION_HEIGHT = 14f;
+    static final int DEFAULT_MAX_LINES = 3000, DEFAULT_TAIL_LINES = 200;
+    static final CodeListing DEFAULT = new CodeListing(false, DEFAULT_MAX_LINES);
+
+    final boolean lineNumbers;
+    final int maxLines, tailLines;
+
+    // Keeps a tail of DEFAULT_TAIL_LINES, or a tenth of the cap when that is smaller
+    CodeListing(boolean lineNumbers, int maxLines) {
+        this(lineNumbers, maxLines, Math.min(DEFAULT_TAIL_LINES, maxLines / 10));
+    }
+
+    CodeListing(boolean lineNumbers, int maxLines, int tailLines) {
+        if (maxLines < 1 || tailLines < 0 || tailLines >= maxLines) {
+            throw new IllegalArgumentException("Need maxLines >= 1 and 0 <= tailLines < maxLines");
+        }
+        this.lineNumbers = lineNumbers;
+        this.maxLines = maxLines;
+        this.tailLines = tailLines;
+    }
+
+    // Part of the fragment cache key: sections laid out under another policy look different
+    String signature() {
+        return (lineNumbers ? "numbered" : "plain") + "," + maxLines + "," + tailLines;
+    }
+
+    // ==========================================
+    // LAYOUT
+    // ==========================================
+    /** The listing of already sanitized {@code code}, ready to add to the document. */
+    PdfPTable layout(String code, StylePalette styles) {
+        int[] lines = lineBounds(code);
+        int lineCount = lines.length / 2;
+        boolean elided = lineCount > maxLines;
+        int head = elided ? maxLines - tailLines : lineCount;
+        int tailFrom = elided ? lineCount - tailLines : lineCount;
+
+        PdfPTable table = new PdfPTable(1);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(5f);
+
+        PdfPCell caption = new PdfPCell();
+        caption.setBorder(Rectangle.NO_BORDER);
+        caption.setFixedHeight(CAPTION_HEIGHT);
+        table.addCell(caption);
+        table.setHeaderRows(1);
+
+        JavaLexer.Tokens tokens = JavaLexer.tokenize(code);
+        String numberFormat = "%" + String.valueOf(lineCount).length() + "d  ";
+        TokenCursor cursor = new TokenCursor(code, tokens, styles);
+        for (int from = 0; from < head; from += LINES_PER_ROW) {
+            int to = Math.min(from + LINES_PER_ROW, head);
+            table.addCell(row(cursor, lines, from, to, numberFormat, styles, !elided && to == head));
+        }
+        if (elided) {
+            PdfPCell marker = new PdfPCell(new Phrase("... " + String.format("%,d", tailFrom - head) + " lines omitted ...", styles.codeElision));
+            marker.setBorder(Rectangle.NO_BORDER);
+            marker.setHorizontalAlignment(Element.ALIGN_CENTER);
+            marker.setPaddingTop(head == 0 ? 0f : 4f);
+            marker.setPaddingBottom(tailLines == 0 ? 10f : 4f);
+            table.addCell(marker);
+            for (int from = tailFrom; from < lineCount; from += LINES_PER_ROW) {
+                int to = Math.min(from + LINES_PER_ROW, lineCount);
+                table.addCell(row(cursor, lines, from, to, numberFormat, styles, to == lineCount));
+            }
+        }
+        table.setTableEvent(new Box(styles));
+        return table;
+    }
+
+    // Lines [from, to) as one row; only the last row is padded vertically (the header pads the top)
+    private PdfPCell row(TokenCursor cursor, int[] lines, int from, int to, String numberFormat, StylePalette styles,
+                         boolean last) {
+        Phrase text = new Phrase();
+        for (int line = from; line < to; line++) {
+            if (line > from) text.add(new Chunk("\n", styles.code));
+            if (lineNumbers) text.add(new Chunk(String.format(numberFormat, line + 1), styles.codeLineNumber));
+            int start = lines[line * 2], end = lines[line * 2 + 1];
+            if (start == end && !lineNumbers) text.add(new Chunk(" ", styles.code)); // keeps blank lines from collapsing
+            else cursor.appendLine(text, start, end);
+        }
+        PdfPCell cell = new PdfPCell(text);
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setPaddingLeft(10f);
+        cell.setPaddingRight(10f);
+        cell.setPaddingTop(0f);
+        cell.setPaddingBottom(last ? 10f : 0f);
+        return cell;
+    }
+
+    // Start and end offset of every line, without the line break; a final line break ends the text
+    private static int[] lineBounds(String code) {
+        int count = 1;
+        for (int i = 0; i < code.length(); i++) if (code.charAt(i) == '\n') count++;
+        if (code.endsWith("\n")) count--;
+        int[] bounds = new int[count * 2];
+        int start = 0;
+        for (int line = 0; line < count; line++) {
+            int end = code.indexOf('\n', start);
+            if (end < 0) end = code.length();
+            int next = end + 1;
+            if (end > start && code.charAt(end - 1) == '\r') end--;
+            bounds[line * 2] = start;
+            bounds[line * 2 + 1] = end;
+            start = next;
+        }
+        return bounds;
+    }
+
+    // --- Walks the tokens forward once, cutting them at line boundaries ---
+    private static final class TokenCursor {
+        private final String code;
+        private final JavaLexer.Tokens tokens;
+        private final StylePalette styles;
+        private int next;
+
+        TokenCursor(String code, JavaLexer.Tokens tokens, StylePalette styles) {
+            this.code = code; this.tokens = tokens; this.styles = styles;
+        }
+
+        // Lines are asked for in increasing order; skipped (elided) lines just advance the cursor
+        void appendLine(Phrase out, int start, int end) {
+            while (next < tokens.count() && tokens.end(next) <= start) next++;
+            int pos = start;
+            for (int t = next; t < tokens.count() && tokens.start(t) < end; t++) {
+                int from = Math.max(tokens.start(t), start), to = Math.min(tokens.end(t), end);
+                if (from > pos) out.add(new Chunk(code.substring(pos, from), styles.code));
+                if (to > from) out.add(new Chunk(code.substring(from, to), styles.codeFont(tokens.kind(t))));
+                pos = Math.max(pos, to);
+            }
+            if (pos < end) out.add(new Chunk(code.substring(pos, end), styles.code));
+        }
+    }
+
+    // --- Background and border around each page's part; parts after the first get the caption ---
+    private static final class Box implements PdfPTableEvent {
+        private final StylePalette styles;
+        private boolean continued;
+
+        Box(StylePalette styles) { this.styles = styles; }
+
+        // Called once per page, in order, with a copy of the table holding that page's rows
+        @Override
+        public void tableLayout(PdfPTable table, float[][] widths, float[] heights, int headerRows, int rowStart, PdfContentByte[] canvases) {
+            float left = widths[0][0], right = widths[0][widths[0].length - 1];
+            float top = heights[0], bottom = heights[heights.length - 1];
+
+            PdfContentByte background = canvases[PdfPTable.BACKGROUNDCANVAS];
+            background.saveState();
+            background.setColorFill(styles.codeBackground);
+            background.rectangle(left, bottom, right - left, top - bottom);
+            background.fill();
+            background.restoreState();
+
+            PdfContentByte lines = canvases[PdfPTable.LINECANVAS];
+            lines.saveState();
+            lines.setColorStroke(styles.border);
+            lines.setLineWidth(1f);
+            lines.rectangle(left, bottom, right - left, top - bottom);
+            lines.stroke();
+            lines.restoreState();
+
+            if (continued) {
+                ColumnText.showTextAligned(canvases[PdfPTable.TEXTCANVAS], Element.ALIGN_LEFT,
+                        new Phrase("Program Code (continued)", styles.codeCaption), left + 10f, heights[headerRows] + 3f, 0f);
+            }
+            continued = true;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.example;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Small fixed-size pool of SQLite connections to one database file.
+ * <p>
+ * Every connection runs in WAL mode with {@code synchronous=NORMAL}, so readers (a
+ * streaming render, the table) never block the single writer and vice versa, and a
+ * commit costs one fsync at checkpoint time rather than one per statement. A writer that
+ * finds another write in progress waits up to {@code busy_timeout} instead of failing
+ * with {@code SQLITE_BUSY}; transactions start {@code IMMEDIATE} so two writers can never
+ * deadlock upgrading read locks.
+ * <p>
+ * Each pooled connection keeps its prepared statements for reuse. Callers must close the
+ * result sets they open but never the statements returned by {@link PooledConnection#prepare}.
+ */
+class Database implements AutoCloseable {
+
+    static final int DEFAULT_POOL_SIZE = 4;
+    static final int BUSY_TIMEOUT_MILLIS = 5000;
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+
+    // --- Unit of work run on one borrowed connection ---
+    interface Work<T> {
+        T run(PooledConnection c) throws SQLException;
+    }
+
+    // --- A borrowed connection; close() hands it back to the pool ---
+    static final class PooledConnection implements AutoCloseable {
+        private final Database owner;
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Database owner, Connection connection) {
+            this.owner = owner;
+            this.connection = connection;
+        }
+
+        Connection connection() { return connection; }
+
+        // Cached per connection: parsed and planned by SQLite once, then only rebound
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        @Override
+        public void close() {
+            owner.release(this);
+        }
+
+        private void closePhysical() {
+            for (PreparedStatement ps : statements.values()) {
+                try { ps.close(); } catch (SQLException ignore) {}
+            }
+            try { connection.close(); } catch (SQLException ignore) {}
+        }
+    }
+
+    private final String url;
+    private final SQLiteConfig config;
+    private final BlockingQueue<PooledConnection> idle;
+    private volatile boolean closed;
+    private int movedIntoBlobStore;
+
+    private Database(File file, int poolSize) throws SQLException {
+        url = "jdbc:sqlite:" + file.getAbsolutePath();
+        config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+
+        idle = new ArrayBlockingQueue<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                Connection conn = config.createConnection(url);
+                BlobStore.registerFunctions(conn);
+                PooledConnection c = new PooledConnection(this, conn);
+                idle.add(c);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Opens (creating if needed) and migrates the schema. The move of inline code, input and
+    // output into the blob store is one-way: a build from before the blob store opens a
+    // migrated database but sees those fields empty.
+    static Database open(File file, int poolSize) throws SQLException {
+        Database db = new Database(file, poolSize);
+        try {
+            db.migrate();
+        } catch (SQLException e) {
+            db.close();
+            throw e;
+        }
+        return db;
+    }
+
+    // The per-user workspace database
+    static Database openWorkspace() throws SQLException {
+        return open(AppPaths.databaseFile(), DEFAULT_POOL_SIZE);
+    }
+
+    // A database named in a batch roster: never creates an empty file for a mistyped path
+    static Database openExisting(File file, int poolSize) throws SQLException {
+        if (!file.exists()) throw new SQLException("Database not found: " + file);
+        return open(file, poolSize);
+    }
+
+    /**
+     * Borrows a connection for longer-lived work such as a streaming render; close it
+     * (try-with-resources) to give it back. Waits for a free one when all are busy.
+     */
+    PooledConnection borrow() throws SQLException {
+        if (closed) throw new SQLException("Database is closed");
+        try {
+            PooledConnection c = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (c == null) throw new SQLException("Timed out waiting for a database connection");
+            return c;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+    }
+
+    // Runs work on a borrowed connection in autocommit mode (one statement, one transaction)
+    <T> T withConnection(Work<T> work) throws SQLException {
+        try (PooledConnection c = borrow()) {
+            return work.run(c);
+        }
+    }
+
+    // Runs work as one transaction: committed if it returns, rolled back if it throws
+    <T> T inTransaction(Work<T> work) throws SQLException {
+        try (PooledConnection c = borrow()) {
+            Connection conn = c.connection();
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(c);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try { conn.rollback(); } catch (SQLException suppressed) { e.addSuppressed(suppressed); }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void release(PooledConnection c) {
+        if (closed) {
+            c.closePhysical();
+        } else {
+            idle.offer(c);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection c;
+        while ((c = idle.poll()) != null) c.closePhysical();
+        // Connections still borrowed are closed when they are released
+    }
+
+    // ==========================================
+    // SCHEMA
+    // ==========================================
+    private void migrate() throws SQLException {
+        int moved;
+        try (PooledConnection c = borrow(); Statement stmt = c.connection().createStatement()) {
+            // Experiments table (updated to support all fields)
+            stmt.execute("CREATE TABLE IF NOT EXISTS experiments (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "exp_no TEXT NOT NULL," +
+                    "title TEXT NOT NULL," +
+                    "date TEXT," +
+                    "aim TEXT," +
+                    "code TEXT," +
+                    "input TEXT," +
+                    "output TEXT," +
+                    "image_path TEXT)");
+
+            // Settings table for Auto-populate
+            stmt.execute("CREATE TABLE IF NOT EXISTS settings (" +
+                    "key_name TEXT PRIMARY KEY, " +
+                    "key_value TEXT)");
+
+            // Migrate older databases
+            addColumnIfMissing(stmt, "experiments", "input", "TEXT");
+            addColumnIfMissing(stmt, "experiments", "image_path", "TEXT");
+            addColumnIfMissing(stmt, "experiments", "repo_path", "TEXT");
+            addColumnIfMissing(stmt, "experiments", "content_hash", "TEXT");
+
+            // One row per imported repository; manual rows (NULL repo_path) are unconstrained
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_experiments_repo ON experiments(repo_path) WHERE repo_path IS NOT NULL");
+
+            // Code, input and output live in the content-addressed blob store
+            BlobStore.createSchema(stmt);
+            addColumnIfMissing(stmt, "experiments", "code_hash", "TEXT");
+            addColumnIfMissing(stmt, "experiments", "input_hash", "TEXT");
+            addColumnIfMissing(stmt, "experiments", "output_hash", "TEXT");
+            BlobStore.createReferenceIndexes(stmt);
+            moved = BlobStore.migrateInlineText(c);
+
+            // Full-text index over the final rows, kept in step through its change log from here on
+            SearchIndex.createSchema(stmt);
+            if (moved > 0) BlobStore.sweep(stmt); // later edits and deletes release their blobs as the log is applied
+
+            // Batch generation jobs, resumed across runs
+            JobQueue.createSchema(stmt);
+            addColumnIfMissing(stmt, "jobs", "batch_id", "TEXT");
+            JobQueue.createIndexes(stmt);
+        }
+        inTransaction(SearchIndex::applyLog); // changes made since the last open, by any program
+        if (moved > 0) {
+            // One-off after the migration: give the freed inline pages back to the filesystem.
+            // Runs on its own connection, since pooled ones keep their cached statements prepared.
+            try (Connection conn = config.createConnection(url); Statement stmt = conn.createStatement()) {
+                stmt.execute("VACUUM");
+            }
+        }
+        movedIntoBlobStore = moved;
+    }
+
+    // Rows whose inline text this open moved into the blob store (0 once migrated); for the caller to report
+    int movedIntoBlobStore() {
+        return movedIntoBlobStore;
+    }
+
+    BlobStore.Report storageReport() throws SQLException {
+        try (PooledConnection c = borrow(); Statement stmt = c.connection().createStatement()) {
+            return BlobStore.report(stmt);
+        }
+    }
+
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String type) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) return;
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+    }
+}
@@ -0,0 +1,14 @@
+package org.example;
+
+// --- POJO for PDF Generation ---
+class Experiment {
+    int id;
+    String no, name, date, aim, code, input, output, outputImagePath;
+    String repoPath, contentHash; // set only for rows imported from a repository
+    boolean numberFromRepo;       // the README states the number (rather than it being a fallback)
+
+    public Experiment(int id, String no, String name, String date, String aim, String code, String input, String output, String outputImagePath) {
+        this.id = id; this.no = no; this.name = name; this.date = date; this.aim = aim;
+        this.code = code; this.input = input; this.output = output; this.outputImagePath = outputImagePath;
+    }
+}
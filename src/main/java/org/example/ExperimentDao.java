@@ -0,0 +1,308 @@
+package org.example;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All reads and writes of the {@code experiments} table. Statements come from the
+ * per-connection cache in {@link Database}; multi-row writes run in one transaction.
+ * Code, input and output are stored through {@link BlobStore}; only full-row reads
+ * inflate them.
+ */
+class ExperimentDao {
+
+    // Queries select FROM experiments e
+    static final String ORDER = " ORDER BY CAST(e.exp_no AS INTEGER), e.id";
+
+    // Full rows: code/input/output are inflated from the blob store (inline text is what an older build wrote)
+    static final String SELECT_FULL_ROWS = "SELECT e.id, e.exp_no, e.title, e.date, e.aim, " +
+            "COALESCE(" + BlobStore.textOf("cb") + ", e.code) AS code, " +
+            "COALESCE(" + BlobStore.textOf("ib") + ", e.input) AS input, " +
+            "COALESCE(" + BlobStore.textOf("ob") + ", e.output) AS output, " +
+            "e.image_path, e.repo_path, e.content_hash FROM experiments e " +
+            "LEFT JOIN blobs cb ON cb.hash = e.code_hash " +
+            "LEFT JOIN blobs ib ON ib.hash = e.input_hash " +
+            "LEFT JOIN blobs ob ON ob.hash = e.output_hash";
+
+    private static final String SELECT_ALL = SELECT_FULL_ROWS + ORDER;
+    private static final String SELECT_BY_ID = SELECT_FULL_ROWS + " WHERE e.id = ?";
+    // What a rendered record depends on per row; text is compared by its blob hash, never read
+    private static final String SELECT_FINGERPRINT = "SELECT e.exp_no, e.title, e.date, e.aim, " +
+            "COALESCE(e.code_hash, e.code), COALESCE(e.input_hash, e.input), COALESCE(e.output_hash, e.output), e.image_path " +
+            "FROM experiments e" + ORDER;
+    private static final String SELECT_ID_BY_REPO = "SELECT id FROM experiments WHERE repo_path = ?";
+    private static final String SELECT_REPO_PATHS = "SELECT repo_path FROM experiments WHERE repo_path IS NOT NULL";
+    private static final String INSERT = "INSERT INTO experiments(exp_no, title, date, aim, code_hash, input_hash, output_hash, image_path) VALUES(?,?,?,?,?,?,?,?)";
+    private static final String UPDATE = "UPDATE experiments SET exp_no=?, title=?, date=?, aim=?, code_hash=?, input_hash=?, output_hash=?, image_path=?, " +
+            "code=NULL, input=NULL, output=NULL WHERE id=?";
+    private static final String DELETE = "DELETE FROM experiments WHERE id = ?";
+    // ?11 is the number the README states (NULL for a fallback number, which never replaces the existing one)
+    private static final String UPSERT_IMPORTED =
+            "INSERT INTO experiments(exp_no, title, date, aim, code_hash, input_hash, output_hash, image_path, repo_path, content_hash) VALUES(?,?,?,?,?,?,?,?,?,?) " +
+            "ON CONFLICT(repo_path) WHERE repo_path IS NOT NULL DO UPDATE SET " +
+            "exp_no=COALESCE(?11, experiments.exp_no), " +
+            "title=excluded.title, aim=excluded.aim, code_hash=excluded.code_hash, input_hash=excluded.input_hash, output_hash=excluded.output_hash, " +
+            "content_hash=excluded.content_hash, code=NULL, input=NULL, output=NULL " +
+            "WHERE experiments.content_hash IS NOT excluded.content_hash OR experiments.exp_no IS NOT COALESCE(?11, experiments.exp_no)";
+
+    // --- Table sort orders; each key is an SQL expression over the row alias, ties broken by id ---
+    enum SortColumn {
+        ID("%s.id"),
+        NUMBER("CAST(%s.exp_no AS INTEGER)"),
+        TITLE("%s.title COLLATE NOCASE"),
+        // dd/MM/yyyy text, compared as yyyyMMdd
+        DATE("COALESCE(substr(%1$s.date, 7, 4) || substr(%1$s.date, 4, 2) || substr(%1$s.date, 1, 2), '')");
+
+        private final String template;
+
+        SortColumn(String template) { this.template = template; }
+
+        String key(String alias) { return String.format(template, alias); }
+    }
+
+    // --- One view of the table: optional filter text plus sort order ---
+    static final class Query {
+        final String filter;
+        final SortColumn sort;
+        final boolean ascending;
+
+        Query(String filter, SortColumn sort, boolean ascending) {
+            this.filter = filter == null ? "" : filter.trim();
+            this.sort = sort; this.ascending = ascending;
+        }
+
+        private String where(String alias) {
+            return filter.isEmpty() ? "1" : "(" + alias + ".title LIKE ? ESCAPE '\\' OR " + alias + ".exp_no LIKE ? ESCAPE '\\')";
+        }
+
+        private String orderBy(String alias) {
+            String dir = ascending ? " ASC" : " DESC";
+            return " ORDER BY " + sort.key(alias) + dir + ", " + alias + ".id" + dir;
+        }
+
+        private int bindFilter(PreparedStatement ps, int index) throws SQLException {
+            if (filter.isEmpty()) return index;
+            String pattern = "%" + filter.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            ps.setString(index++, pattern);
+            ps.setString(index++, pattern);
+            return index;
+        }
+    }
+
+    private final Database db;
+
+    ExperimentDao(Database db) {
+        this.db = db;
+    }
+
+    // ==========================================
+    // READS
+    // ==========================================
+    List<Experiment> listAll() throws SQLException {
+        return db.withConnection(c -> {
+            List<Experiment> list = new ArrayList<>();
+            try (ResultSet rs = c.prepare(SELECT_ALL).executeQuery()) {
+                while (rs.next()) list.add(fullRow(rs));
+            }
+            return list;
+        });
+    }
+
+    /** SHA-256 over every row in render order and each output image's size and date; changes whenever a record would. */
+    String fingerprint() throws SQLException {
+        return db.withConnection(c -> {
+            MessageDigest md = Digests.sha256();
+            try (ResultSet rs = c.prepare(SELECT_FINGERPRINT).executeQuery()) {
+                while (rs.next()) {
+                    for (int i = 1; i <= 8; i++) Digests.update(md, rs.getString(i));
+                    String image = rs.getString(8);
+                    if (image != null && !image.trim().isEmpty()) {
+                        File img = new File(image);
+                        Digests.update(md, img.lastModified() + ":" + img.length());
+                    }
+                }
+            }
+            return Digests.toHex(md.digest());
+        });
+    }
+
+    int count() throws SQLException {
+        return db.withConnection(c -> {
+            try (ResultSet rs = c.prepare("SELECT COUNT(*) FROM experiments").executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    int count(Query q) throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare("SELECT COUNT(*) FROM experiments e WHERE " + q.where("e"));
+            q.bindFilter(ps, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    // One window of summary rows in the query's order
+    List<Experiment> listSummaries(Query q, int offset, int limit) throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare("SELECT e.id, e.exp_no, e.title, e.date, e.image_path FROM experiments e WHERE " + q.where("e")
+                    + q.orderBy("e") + " LIMIT ? OFFSET ?");
+            int i = q.bindFilter(ps, 1);
+            ps.setInt(i++, limit);
+            ps.setInt(i, offset);
+            List<Experiment> list = new ArrayList<>(limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(summaryRow(rs));
+            }
+            return list;
+        });
+    }
+
+    // Row index of experiment id within the query's ordering, or -1 if it does not exist or match the filter
+    int positionOf(int id, Query q) throws SQLException {
+        return db.withConnection(c -> {
+            String cmp = q.ascending ? " < " : " > ";
+            PreparedStatement ps = c.prepare("SELECT (SELECT COUNT(*) FROM experiments e WHERE " + q.where("e")
+                    + " AND (" + q.sort.key("e") + ", e.id)" + cmp + "(" + q.sort.key("t") + ", t.id))"
+                    + " FROM experiments t WHERE t.id = ? AND " + q.where("t"));
+            int i = q.bindFilter(ps, 1);
+            ps.setInt(i++, id);
+            q.bindFilter(ps, i);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        });
+    }
+
+    Experiment findById(int id) throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(SELECT_BY_ID);
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? fullRow(rs) : null;
+            }
+        });
+    }
+
+    int idForRepoPath(String repoPath) throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(SELECT_ID_BY_REPO);
+            ps.setString(1, repoPath);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        });
+    }
+
+    List<String> importedRepoPaths() throws SQLException {
+        return db.withConnection(c -> {
+            List<String> paths = new ArrayList<>();
+            try (ResultSet rs = c.prepare(SELECT_REPO_PATHS).executeQuery()) {
+                while (rs.next()) paths.add(rs.getString(1));
+            }
+            return paths;
+        });
+    }
+
+    /**
+     * Streams the whole table for one render. The source holds a pooled connection (and
+     * its read snapshot) until it is closed; under WAL, writers are not blocked meanwhile.
+     */
+    ExperimentSource openSource() throws SQLException {
+        Database.PooledConnection c = db.borrow();
+        try {
+            return new SqliteExperimentSource(c);
+        } catch (SQLException | RuntimeException e) {
+            c.close();
+            throw e;
+        }
+    }
+
+    // ==========================================
+    // WRITES
+    // ==========================================
+    // Returns the new row's id
+    int insert(Experiment exp) throws SQLException {
+        return db.inTransaction(c -> {
+            PreparedStatement ps = c.prepare(INSERT);
+            bindContent(c, ps, exp);
+            ps.executeUpdate();
+            try (ResultSet rs = c.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        });
+    }
+
+    void update(Experiment exp) throws SQLException {
+        db.inTransaction(c -> {
+            PreparedStatement ps = c.prepare(UPDATE);
+            bindContent(c, ps, exp);
+            ps.setInt(9, exp.id);
+            return ps.executeUpdate();
+        });
+    }
+
+    void delete(int id) throws SQLException {
+        db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(DELETE);
+            ps.setInt(1, id);
+            return ps.executeUpdate();
+        });
+    }
+
+    /**
+     * Inserts imported experiments, or updates the row already imported from the same
+     * repository. An existing row keeps its id, date and image, and its number unless the
+     * README now states a different one; it is left untouched when neither that number nor
+     * its content hash changed. One transaction and one batched statement
+     * for the whole list; returns how many rows were written.
+     */
+    int upsertImported(List<Experiment> experiments) throws SQLException {
+        if (experiments.isEmpty()) return 0;
+        return db.inTransaction(c -> {
+            PreparedStatement ps = c.prepare(UPSERT_IMPORTED);
+            for (Experiment exp : experiments) {
+                bindContent(c, ps, exp);
+                ps.setString(9, exp.repoPath); ps.setString(10, exp.contentHash);
+                ps.setString(11, exp.numberFromRepo ? exp.no : null);
+                ps.addBatch();
+            }
+            int written = 0;
+            for (int count : ps.executeBatch()) written += Math.max(count, 0);
+            return written;
+        });
+    }
+
+    // ==========================================
+    // ROW MAPPING
+    // ==========================================
+    // Writes the text columns to the blob store and binds their hashes; call inside a transaction
+    private static void bindContent(Database.PooledConnection c, PreparedStatement ps, Experiment exp) throws SQLException {
+        ps.setString(1, exp.no); ps.setString(2, exp.name); ps.setString(3, exp.date);
+        ps.setString(4, exp.aim); ps.setString(5, BlobStore.put(c, exp.code)); ps.setString(6, BlobStore.put(c, exp.input));
+        ps.setString(7, BlobStore.put(c, exp.output)); ps.setString(8, exp.outputImagePath);
+    }
+
+    static Experiment summaryRow(ResultSet rs) throws SQLException {
+        return new Experiment(rs.getInt("id"), rs.getString("exp_no"), rs.getString("title"),
+                rs.getString("date"), null, null, null, null, rs.getString("image_path"));
+    }
+
+    static Experiment fullRow(ResultSet rs) throws SQLException {
+        Experiment exp = new Experiment(
+                rs.getInt("id"), rs.getString("exp_no"), rs.getString("title"),
+                rs.getString("date"), rs.getString("aim"), rs.getString("code"),
+                rs.getString("input"), rs.getString("output"), rs.getString("image_path")
+        );
+        exp.repoPath = rs.getString("repo_path");
+        exp.contentHash = rs.getString("content_hash");
+        return exp;
+    }
+}
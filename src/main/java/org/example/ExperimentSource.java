@@ -0,0 +1,33 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Supplies the experiments of one record in two steps: the light index rows
+ * (id, no, name, date) up front, then each full row once, in index order.
+ * Streaming sources only ever hold the current body in memory.
+ */
+interface ExperimentSource extends AutoCloseable {
+
+    List<Experiment> index() throws SQLException;
+
+    // Next full experiment (aim, code, input, output, image), or null when exhausted
+    Experiment nextBody() throws SQLException;
+
+    @Override
+    default void close() throws SQLException {}
+
+    // --- Source over rows that are already in memory ---
+    static ExperimentSource of(List<Experiment> experiments) {
+        Iterator<Experiment> it = experiments.iterator();
+        return new ExperimentSource() {
+            @Override
+            public List<Experiment> index() { return experiments; }
+
+            @Override
+            public Experiment nextBody() { return it.hasNext() ? it.next() : null; }
+        };
+    }
+}
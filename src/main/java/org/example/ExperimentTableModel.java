@@ -0,0 +1,201 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model over the {@code experiments} table that never holds the whole table.
+ * <p>
+ * Rows are fetched in pages of {@link #PAGE_SIZE} as the {@link javax.swing.JTable}
+ * paints them, and at most {@link #MAX_PAGES} pages are kept (least recently used are
+ * dropped). Sorting and filtering are part of the SQL query, so changing either costs one
+ * COUNT and the visible page. Single-row edits are applied as row deltas: only pages at
+ * or after the changed position are dropped, and the table repaints just that range.
+ * <p>
+ * EDT only, like every Swing model.
+ */
+class ExperimentTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int PAGE_SIZE = 100;
+    static final int MAX_PAGES = 20;
+
+    private static final String[] COLUMNS = {"ID", "Exp No", "Experiment Title", "Date Added"};
+    private static final ExperimentDao.SortColumn[] SORT_KEYS = {
+            ExperimentDao.SortColumn.ID, ExperimentDao.SortColumn.NUMBER,
+            ExperimentDao.SortColumn.TITLE, ExperimentDao.SortColumn.DATE};
+
+    // Swing models are never serialized here; the database handle and page cache would not survive it
+    private final transient ExperimentDao dao;
+    private transient ExperimentDao.Query query = new ExperimentDao.Query("", ExperimentDao.SortColumn.NUMBER, true);
+    private int rowCount;
+
+    private final transient Map<Integer, List<Experiment>> pages = new LinkedHashMap<Integer, List<Experiment>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Experiment>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    ExperimentTableModel(ExperimentDao dao) {
+        this.dao = dao;
+    }
+
+    // ==========================================
+    // TABLE MODEL
+    // ==========================================
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) {
+        if (SORT_KEYS[column] != query.sort) return COLUMNS[column];
+        return COLUMNS[column] + (query.ascending ? " \u25B2" : " \u25BC");
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Integer.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Experiment exp = rowAt(row);
+        if (exp == null) return column == 0 ? Integer.valueOf(-1) : "";
+        switch (column) {
+            case 0: return exp.id;
+            case 1: return exp.no;
+            case 2: return exp.name;
+            default: return exp.date;
+        }
+    }
+
+    int idAt(int row) {
+        Experiment exp = rowAt(row);
+        return exp != null ? exp.id : -1;
+    }
+
+    private Experiment rowAt(int row) {
+        if (row < 0 || row >= rowCount) return null;
+        List<Experiment> page = page(row / PAGE_SIZE);
+        int offset = row % PAGE_SIZE;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    private List<Experiment> page(int index) {
+        List<Experiment> page = pages.get(index);
+        if (page == null) {
+            try {
+                page = dao.listSummaries(query, index * PAGE_SIZE, PAGE_SIZE);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return Collections.emptyList(); // not cached: retried on the next paint
+            }
+            pages.put(index, page);
+        }
+        return page;
+    }
+
+    // ==========================================
+    // SORT / FILTER (pushed down to SQL)
+    // ==========================================
+    String filter() { return query.filter; }
+
+    void setFilter(String filter) {
+        query = new ExperimentDao.Query(filter, query.sort, query.ascending);
+        reload();
+    }
+
+    // Clicking the sorted column again reverses it
+    void toggleSort(int column) {
+        ExperimentDao.SortColumn sort = SORT_KEYS[column];
+        boolean ascending = sort != query.sort || !query.ascending;
+        query = new ExperimentDao.Query(query.filter, sort, ascending);
+        pages.clear();
+        fireTableDataChanged(); // the view refreshes header values from getColumnName
+    }
+
+    // Full refresh, for multi-row changes such as a bulk import
+    void reload() {
+        pages.clear();
+        try {
+            rowCount = dao.count(query);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            rowCount = 0;
+        }
+        fireTableDataChanged();
+    }
+
+    // ==========================================
+    // ROW DELTAS
+    // ==========================================
+    void experimentInserted(int id) {
+        int row = positionOf(id);
+        if (row < 0) return; // hidden by the filter
+        rowCount++;
+        dropPagesFrom(row);
+        fireTableRowsInserted(row, row);
+    }
+
+    void experimentDeleted(int row) {
+        if (row < 0 || row >= rowCount) return;
+        rowCount--;
+        dropPagesFrom(row);
+        fireTableRowsDeleted(row, row);
+    }
+
+    // An edit may move the row (new number or title) or take it out of the filter
+    void experimentUpdated(int id) {
+        int oldRow = loadedRowOf(id);
+        if (oldRow < 0) { reload(); return; } // not on a loaded page: nothing cheaper is safe
+        int newRow = positionOf(id);
+        if (newRow < 0) {
+            experimentDeleted(oldRow);
+        } else if (newRow == oldRow) {
+            pages.remove(oldRow / PAGE_SIZE);
+            fireTableRowsUpdated(oldRow, oldRow);
+        } else {
+            dropPagesFrom(Math.min(oldRow, newRow));
+            fireTableRowsDeleted(oldRow, oldRow);
+            fireTableRowsInserted(newRow, newRow);
+        }
+    }
+
+    // Row of experiment id under the current sort and filter, or -1 when it is hidden
+    int positionOf(int id) {
+        try {
+            return dao.positionOf(id, query);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private int loadedRowOf(int id) {
+        for (Map.Entry<Integer, List<Experiment>> e : pages.entrySet()) {
+            List<Experiment> page = e.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).id == id) return e.getKey() * PAGE_SIZE + i;
+            }
+        }
+        return -1;
+    }
+
+    private void dropPagesFrom(int row) {
+        int first = row / PAGE_SIZE;
+        pages.keySet().removeIf(index -> index >= first);
+    }
+}
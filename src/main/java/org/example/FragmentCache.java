@@ -0,0 +1,153 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.lowagie.text.DocumentException;
+
+/**
+ * On-disk cache of rendered experiment sections, stored as small standalone PDFs under
+ * {@code ~/.lab_record_app/fragments}, each behind a short header with the sizes of the
+ * images embedded in it (so a reused section still reports them).
+ * <p>
+ * The key is a SHA-256 over every column of the experiment row, the output image's
+ * size and mtime, and the renderer's layout signature, so any edit (or a layout change)
+ * produces a new key and unchanged experiments are reused as-is. Entries are written
+ * atomically and the directory is trimmed back to {@code maxBytes}, oldest first.
+ */
+class FragmentCache {
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final int MAGIC = 0x4C524631; // "LRF1"
+
+    // --- A rendered section and the images it embeds ---
+    static final class Fragment {
+        final byte[] pdf;
+        final int images;
+        final long imageBytesOriginal, imageBytesEmbedded;
+
+        Fragment(byte[] pdf, int images, long imageBytesOriginal, long imageBytesEmbedded) {
+            this.pdf = pdf; this.images = images;
+            this.imageBytesOriginal = imageBytesOriginal; this.imageBytesEmbedded = imageBytesEmbedded;
+        }
+    }
+
+    // --- Renders one section when the cache misses ---
+    interface SectionRenderer {
+        Fragment render(Experiment exp) throws DocumentException;
+    }
+
+    private final File dir;
+    private final long maxBytes;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    FragmentCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        dir.mkdirs();
+    }
+
+    static FragmentCache openDefault() {
+        return new FragmentCache(new File(AppPaths.appDir(), "fragments"), DEFAULT_MAX_BYTES);
+    }
+
+    int hits() { return hits.get(); }
+    int misses() { return misses.get(); }
+
+    String statsLine() {
+        return hits() + " experiment(s) reused, " + misses() + " re-rendered";
+    }
+
+    Fragment getOrRender(Experiment exp, String layoutSignature, SectionRenderer renderer) throws DocumentException {
+        String key = keyFor(exp, layoutSignature);
+        File file = new File(dir, key + ".frag");
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+                if (in.readInt() == MAGIC) {
+                    int images = in.readInt();
+                    long original = in.readLong(), embedded = in.readLong();
+                    byte[] pdf = new byte[in.readInt()];
+                    in.readFully(pdf);
+                    file.setLastModified(System.currentTimeMillis()); // keeps hot entries out of pruning
+                    hits.incrementAndGet();
+                    return new Fragment(pdf, images, original, embedded);
+                }
+            } catch (IOException e) {
+                // Unreadable entry: fall through and re-render it
+            }
+        }
+
+        misses.incrementAndGet();
+        Fragment rendered = renderer.render(exp);
+        store(file, rendered);
+        return rendered;
+    }
+
+    // ==========================================
+    // KEYS & STORAGE
+    // ==========================================
+    static String keyFor(Experiment exp, String layoutSignature) {
+        MessageDigest md = Digests.sha256();
+        Digests.update(md, layoutSignature);
+        Digests.update(md, exp.no);
+        Digests.update(md, exp.name);
+        Digests.update(md, exp.date);
+        Digests.update(md, exp.aim);
+        Digests.update(md, exp.code);
+        Digests.update(md, exp.input);
+        Digests.update(md, exp.output);
+        Digests.update(md, exp.outputImagePath);
+        if (exp.outputImagePath != null && !exp.outputImagePath.trim().isEmpty()) {
+            File img = new File(exp.outputImagePath);
+            Digests.update(md, img.lastModified() + ":" + img.length());
+        }
+        return Digests.toHex(md.digest());
+    }
+
+    private void store(File file, Fragment fragment) {
+        try {
+            File tmp = File.createTempFile("frag", ".tmp", dir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(fragment.images);
+                out.writeLong(fragment.imageBytesOriginal);
+                out.writeLong(fragment.imageBytesEmbedded);
+                out.writeInt(fragment.pdf.length);
+                out.write(fragment.pdf);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            prune();
+        } catch (IOException e) {
+            System.err.println("Could not cache rendered experiment: " + e.getMessage());
+        }
+    }
+
+    // Bare .pdf entries are from before the header existed; they are never read, only aged out
+    private synchronized void prune() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".frag") || name.endsWith(".pdf"));
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= maxBytes) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            if (total <= maxBytes) break;
+            long len = f.length();
+            if (f.delete()) total -= len;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package org.example;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Code editor that highlights Java while it is typed, with the same {@link JavaLexer} rules
+ * and {@link StylePalette} colours as the listing in the PDF.
+ * <p>
+ * Every line remembers the lexer state it starts in. An edit only marks its own lines dirty;
+ * after a short pause the dirty lines are re-lexed on a background thread from a snapshot of
+ * the text from the first dirty line on (copied on that thread, under the document's read
+ * lock), continuing below them only until a line starts in the same state as before
+ * (opening a comment recolours everything after it, typing a letter recolours one line).
+ * Styles go back on the EDT a few milliseconds' worth of lines per event, so pasting thousands
+ * of lines never freezes the dialog. Results for text that changed in the meantime are
+ * dropped and redone.
+ */
+final class HighlightedCodePane extends JTextPane {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int COALESCE_MILLIS = 60;
+    static final long SLICE_NANOS = 8_000_000L;
+
+    // One thread for every editor: jobs are short and only the latest one per editor matters
+    private static final ExecutorService LEXER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "code-highlighter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Indexed by token kind; 0 is plain code
+    private static final AttributeSet[] TOKEN_STYLES = tokenStyles(StylePalette.DEFAULT);
+
+    private final int rows, columns;
+
+    // --- EDT only ---
+    private int[] lineStates = new int[64]; // lexer state at the start of each line
+    private int lineCount = 1;
+    private int dirtyFrom = -1, dirtyTo = -1; // lines [dirtyFrom, dirtyTo) need lexing
+    private boolean lexing;
+    private final Timer coalesce;
+
+    // Bumped by every insert and remove, inside the document's write lock; read by the lexer thread
+    private volatile int version;
+
+    HighlightedCodePane(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        coalesce = new Timer(COALESCE_MILLIS, e -> startLexing());
+        coalesce.setRepeats(false);
+        getDocument().addDocumentListener(new EditListener());
+    }
+
+    // --- Sized like a JTextArea(rows, columns); long lines scroll instead of wrapping ---
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        FontMetrics fm = getFontMetrics(getFont());
+        return new Dimension(columns * fm.charWidth('m'), rows * fm.getHeight());
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() == null || getUI().getPreferredSize(this).width <= getParent().getSize().width;
+    }
+
+    // ==========================================
+    // EDIT TRACKING (EDT)
+    // ==========================================
+    private final class EditListener implements DocumentListener {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            int line = lineOf(e.getOffset());
+            int added = root().getElementCount() - lineCount;
+            insertLines(line + 1, added, lineStates[line]);
+            markDirty(line, line + added + 1);
+            edited();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            int line = lineOf(e.getOffset());
+            removeLines(line + 1, lineCount - root().getElementCount());
+            markDirty(line, line + 1);
+            edited();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {} // attribute changes, i.e. our own styling
+    }
+
+    private void edited() {
+        version++;
+        coalesce.restart();
+    }
+
+    private Element root() { return getDocument().getDefaultRootElement(); }
+
+    private int lineOf(int offset) { return root().getElementIndex(offset); }
+
+    // New lines start as a copy of the line they were split from, until lexed
+    private void insertLines(int at, int n, int state) {
+        if (n <= 0) return;
+        if (lineCount + n > lineStates.length) lineStates = Arrays.copyOf(lineStates, Math.max(lineStates.length * 2, lineCount + n));
+        System.arraycopy(lineStates, at, lineStates, at + n, lineCount - at);
+        Arrays.fill(lineStates, at, at + n, state);
+        lineCount += n;
+        if (isDirty()) {
+            if (dirtyFrom >= at) dirtyFrom += n;
+            if (dirtyTo > at) dirtyTo += n;
+        }
+    }
+
+    // Lines [at, at + n) were joined onto line at - 1
+    private void removeLines(int at, int n) {
+        if (n <= 0) return;
+        System.arraycopy(lineStates, at + n, lineStates, at, lineCount - at - n);
+        lineCount -= n;
+        if (isDirty()) {
+            dirtyFrom = dirtyFrom >= at + n ? dirtyFrom - n : Math.min(dirtyFrom, at);
+            dirtyTo = dirtyTo >= at + n ? dirtyTo - n : Math.min(dirtyTo, at);
+        }
+    }
+
+    private boolean isDirty() { return dirtyFrom < dirtyTo; }
+
+    private void markDirty(int from, int to) {
+        if (isDirty()) {
+            dirtyFrom = Math.min(dirtyFrom, from);
+            dirtyTo = Math.max(dirtyTo, to);
+        } else {
+            dirtyFrom = from;
+            dirtyTo = to;
+        }
+    }
+
+    // ==========================================
+    // LEXING (background) AND STYLING (EDT)
+    // ==========================================
+    private void startLexing() {
+        if (lexing || !isDirty()) return; // a running job restarts the timer when it finishes
+        Document doc = getDocument();
+        Job job = new Job(version, dirtyFrom, dirtyTo, root().getElement(dirtyFrom).getStartOffset(),
+                Arrays.copyOf(lineStates, lineCount));
+        lexing = true;
+        LEXER.execute(() -> {
+            if (snapshot(doc, job)) job.run();
+            SwingUtilities.invokeLater(() -> {
+                lexing = false;
+                applySlice(job, job.from);
+            });
+        });
+    }
+
+    // Lexer thread: copies the text from the job's first line to the end. Nothing is copied once
+    // the document was edited after startLexing, since applySlice drops such a job anyway.
+    private boolean snapshot(Document doc, Job job) {
+        boolean[] copied = new boolean[1];
+        doc.render(() -> {
+            if (version != job.version) return;
+            try {
+                job.text = doc.getText(job.base, doc.getLength() - job.base);
+                copied[0] = true;
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return copied[0];
+    }
+
+    // Styles lines of a finished job from {@code first} for up to SLICE_NANOS, then queues the rest
+    private void applySlice(Job job, int first) {
+        if (job.version != version) { // edited meanwhile: the dirty range still covers the rest
+            coalesce.restart();
+            return;
+        }
+        StyledDocument doc = getStyledDocument();
+        JavaLexer.Tokens tokens = job.tokens;
+        long deadline = System.nanoTime() + SLICE_NANOS;
+        int line = first;
+        while (line < job.stop && (line == first || System.nanoTime() < deadline)) {
+            int start = job.lineStart(line);
+            doc.setCharacterAttributes(start, job.lineStart(line + 1) - start, TOKEN_STYLES[0], true);
+            for (int t = job.firstToken(line), end = job.firstToken(line + 1); t < end; t++) {
+                doc.setCharacterAttributes(job.base + tokens.start(t), tokens.end(t) - tokens.start(t), TOKEN_STYLES[tokens.kind(t)], true);
+            }
+            line++;
+            if (line < lineCount) lineStates[line] = job.state(line);
+        }
+        int last = line;
+
+        if (last < job.stop) {
+            dirtyFrom = last;
+            dirtyTo = job.stop;
+            SwingUtilities.invokeLater(() -> applySlice(job, last));
+        } else {
+            dirtyFrom = dirtyTo = -1;
+        }
+    }
+
+    // --- One background pass over a snapshot: lexes from the first dirty line until the states converge ---
+    private static final class Job {
+        final int version, from, to;
+        final int base; // document offset of line from; text and token offsets are relative to it
+        String text;    // set by snapshot
+        private final int[] oldStates;
+        final JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        // Per lexed line (index - from), plus one past the last: start offset, first token, start state
+        private int[] starts, firstTokens, states;
+        int stop;
+
+        Job(int version, int from, int to, int base, int[] oldStates) {
+            this.version = version; this.from = from; this.to = to;
+            this.base = base; this.oldStates = oldStates;
+            int expected = Math.min(oldStates.length, to + 64) - from + 1;
+            starts = new int[expected]; firstTokens = new int[expected]; states = new int[expected];
+        }
+
+        void run() {
+            int line = from, offset = 0, state = oldStates[from];
+            while (true) {
+                record(line, offset, state);
+                if (line >= oldStates.length) break;
+                if (line >= to && state == oldStates[line]) break; // everything below is unchanged
+                int end = text.indexOf('\n', offset);
+                end = end < 0 ? text.length() : end + 1;
+                state = JavaLexer.tokenize(text, offset, end, state, tokens);
+                offset = end;
+                line++;
+            }
+            stop = line;
+        }
+
+        private void record(int line, int offset, int state) {
+            int i = line - from;
+            if (i == starts.length) {
+                starts = Arrays.copyOf(starts, i * 2);
+                firstTokens = Arrays.copyOf(firstTokens, i * 2);
+                states = Arrays.copyOf(states, i * 2);
+            }
+            starts[i] = base + offset;
+            firstTokens[i] = tokens.count();
+            states[i] = state;
+        }
+
+        int lineStart(int line) { return starts[line - from]; }
+        int firstToken(int line) { return firstTokens[line - from]; }
+        int state(int line) { return states[line - from]; }
+    }
+
+    private static AttributeSet[] tokenStyles(StylePalette palette) {
+        AttributeSet[] styles = new AttributeSet[JavaLexer.ANNOTATION + 1];
+        for (int kind = 0; kind < styles.length; kind++) {
+            com.lowagie.text.Font font = palette.codeFont(kind);
+            SimpleAttributeSet style = new SimpleAttributeSet();
+            StyleConstants.setForeground(style, font.getColor() != null ? font.getColor() : Color.BLACK);
+            StyleConstants.setBold(style, font.isBold());
+            StyleConstants.setItalic(style, font.isItalic());
+            styles[kind] = style;
+        }
+        return styles;
+    }
+}
@@ -0,0 +1,271 @@
+package org.example;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Decodes output screenshots and the logo, downsamples them to the resolution they are
+ * actually printed at and re-encodes them, caching the result under
+ * {@code ~/.lab_record_app/images}.
+ * <p>
+ * {@code Image.scaleToFit} only changes the displayed size, so a 4K screenshot used to be
+ * embedded at full resolution in every record. Here the printed size (in points) follows
+ * the same fit rules as before, and pixels beyond {@code dpi} at that size are dropped.
+ * Opaque images are stored as JPEG at {@code quality} when that beats lossless PNG;
+ * images with alpha, or any image when quality is 1.0, stay PNG. The original bytes
+ * are kept whenever they are already smaller.
+ * <p>
+ * Entries are keyed by path, file size, mtime, target box and budget, so they are shared
+ * across generations and across students. Every change to a screenshot or the budget adds
+ * entries, so the directory is trimmed back to {@code maxBytes}, least recently used first,
+ * like the {@link FragmentCache}. Work runs on a small CPU-bound pool; concurrent requests
+ * for the same entry share one computation.
+ */
+class ImagePipeline {
+
+    static final int DEFAULT_DPI = 150;
+    static final float DEFAULT_QUALITY = 0.85f;
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final int MAGIC = 0x4C524931; // "LRI1"
+    private static ImagePipeline shared;
+
+    // --- A preprocessed image and the size it should be printed at (points) ---
+    static class Prepared {
+        final byte[] data;
+        final float width, height;
+        final long originalBytes;
+
+        Prepared(byte[] data, float width, float height, long originalBytes) {
+            this.data = data; this.width = width; this.height = height; this.originalBytes = originalBytes;
+        }
+    }
+
+    private final int dpi;
+    private final float quality;
+    private final File dir;
+    private final long maxBytes;
+    private final ExecutorService workers;
+    private final ConcurrentHashMap<String, CompletableFuture<Prepared>> inFlight = new ConcurrentHashMap<>();
+
+    ImagePipeline(File dir, int dpi, float quality) {
+        this(dir, dpi, quality, DEFAULT_MAX_BYTES);
+    }
+
+    ImagePipeline(File dir, int dpi, float quality, long maxBytes) {
+        if (dpi < 1 || quality <= 0f || quality > 1f) throw new IllegalArgumentException("Invalid image budget: " + dpi + " dpi, quality " + quality);
+        this.dir = dir;
+        this.dpi = dpi;
+        this.quality = quality;
+        this.maxBytes = maxBytes;
+        dir.mkdirs();
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "image-pipeline");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    static ImagePipeline create(int dpi, float quality) {
+        return new ImagePipeline(new File(AppPaths.appDir(), "images"), dpi, quality);
+    }
+
+    static synchronized ImagePipeline shared() {
+        if (shared == null) shared = create(DEFAULT_DPI, DEFAULT_QUALITY);
+        return shared;
+    }
+
+    // Part of the fragment cache key: a different budget must not reuse sections with old images
+    String signature() {
+        return "img-" + dpi + "-" + quality;
+    }
+
+    /**
+     * Starts (or joins) preprocessing of {@code path} for a {@code boxWidth x boxHeight} point box.
+     * With {@code alwaysFit} the image is always scaled into the box (logo); otherwise only
+     * images wider than the box are shrunk (output screenshots), as {@code scaleToFit} did.
+     */
+    CompletableFuture<Prepared> prepareAsync(String path, float boxWidth, float boxHeight, boolean alwaysFit) {
+        File source = new File(path);
+        String key = keyFor(source, boxWidth, boxHeight, alwaysFit);
+        CompletableFuture<Prepared> created = new CompletableFuture<>();
+        CompletableFuture<Prepared> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) return existing;
+
+        workers.execute(() -> {
+            try {
+                created.complete(loadOrProcess(source, key, boxWidth, boxHeight, alwaysFit));
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    Prepared prepare(String path, float boxWidth, float boxHeight, boolean alwaysFit) throws IOException {
+        try {
+            return prepareAsync(path, boxWidth, boxHeight, alwaysFit).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    // ==========================================
+    // CACHE
+    // ==========================================
+    private Prepared loadOrProcess(File source, String key, float boxWidth, float boxHeight, boolean alwaysFit) throws IOException {
+        File entry = new File(dir, key + ".img");
+        if (entry.isFile()) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(entry.toPath())))) {
+                if (in.readInt() == MAGIC) {
+                    float w = in.readFloat(), h = in.readFloat();
+                    long originalBytes = in.readLong();
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    entry.setLastModified(System.currentTimeMillis()); // keeps hot entries out of pruning
+                    return new Prepared(data, w, h, originalBytes);
+                }
+            } catch (IOException e) {
+                // Corrupt entry: rebuild it below
+            }
+        }
+
+        Prepared prepared = process(source, boxWidth, boxHeight, alwaysFit);
+        File tmp = File.createTempFile("img", ".tmp", dir);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(MAGIC);
+            out.writeFloat(prepared.width);
+            out.writeFloat(prepared.height);
+            out.writeLong(prepared.originalBytes);
+            out.writeInt(prepared.data.length);
+            out.write(prepared.data);
+        }
+        Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune();
+        return prepared;
+    }
+
+    private synchronized void prune() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".img"));
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= maxBytes) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            if (total <= maxBytes) break;
+            long len = f.length();
+            if (f.delete()) total -= len;
+        }
+    }
+
+    private String keyFor(File source, float boxWidth, float boxHeight, boolean alwaysFit) {
+        String raw = source.getAbsolutePath() + '\0' + source.length() + '\0' + source.lastModified() + '\0'
+                + boxWidth + 'x' + boxHeight + (alwaysFit ? "fit" : "shrink") + '\0' + signature();
+        return Digests.sha256Hex(raw);
+    }
+
+    // ==========================================
+    // DECODE / DOWNSAMPLE / ENCODE
+    // ==========================================
+    private Prepared process(File source, float boxWidth, float boxHeight, boolean alwaysFit) throws IOException {
+        byte[] original = Files.readAllBytes(source.toPath());
+        BufferedImage src = ImageIO.read(new ByteArrayInputStream(original));
+        if (src == null) throw new IOException("Unsupported image format: " + source);
+
+        // Printed size in points (iText maps one pixel to one point before scaling)
+        float w = src.getWidth(), h = src.getHeight();
+        float scale = (alwaysFit || w > boxWidth) ? Math.min(boxWidth / w, boxHeight / h) : 1f;
+        float printedWidth = w * scale, printedHeight = h * scale;
+
+        int targetWidth = Math.max(1, Math.round(printedWidth / 72f * dpi));
+        int targetHeight = Math.max(1, Math.round(printedHeight / 72f * dpi));
+        boolean alpha = src.getColorModel().hasAlpha();
+
+        BufferedImage out = targetWidth < src.getWidth() ? downscale(src, targetWidth, targetHeight, alpha) : src;
+        byte[] encoded = encodePng(out);
+        if (!alpha && quality < 1f) {
+            // Flat UI screenshots are often smaller as PNG than as JPEG; keep whichever wins
+            byte[] jpeg = encodeJpeg(out);
+            if (jpeg.length < encoded.length) encoded = jpeg;
+        }
+
+        // Small or already well-compressed sources are embedded untouched
+        if (out == src && encoded.length >= original.length) encoded = original;
+        return new Prepared(encoded, printedWidth, printedHeight, original.length);
+    }
+
+    // Repeated halving keeps bilinear filtering from aliasing on large reductions
+    private static BufferedImage downscale(BufferedImage src, int targetWidth, int targetHeight, boolean alpha) {
+        BufferedImage current = src;
+        int w = src.getWidth(), h = src.getHeight();
+        do {
+            w = Math.max(targetWidth, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(w, h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != targetWidth || h != targetHeight);
+        return current;
+    }
+
+    private static byte[] encodePng(BufferedImage img) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", buf);
+        return buf.toByteArray();
+    }
+
+    private byte[] encodeJpeg(BufferedImage img) throws IOException {
+        if (img.getType() != BufferedImage.TYPE_INT_RGB) {
+            BufferedImage rgb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(img, 0, 0, null);
+            g.dispose();
+            img = rgb;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) return encodePng(img);
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(buf)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return buf.toByteArray();
+    }
+}
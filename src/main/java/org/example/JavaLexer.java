@@ -0,0 +1,233 @@
+package org.example;
+
+/**
+ * Single-pass Java tokenizer used for syntax highlighting.
+ * <p>
+ * Every character is examined once and nothing backtracks, so time is linear in the
+ * input even for unterminated strings or comments (the old regex alternation went
+ * quadratic on those). Only highlighted spans are reported; the gaps between them are
+ * plain text. Target throughput is 50+ MB/s of source on a laptop core.
+ * <p>
+ * Lexing can start at any line boundary given the state the previous line ended in,
+ * which lets callers re-lex only the lines touched by an edit.
+ */
+final class JavaLexer {
+
+    // --- Token kinds ---
+    static final int KEYWORD = 1;
+    static final int STRING = 2;
+    static final int CHAR = 3;
+    static final int TEXT_BLOCK = 4;
+    static final int COMMENT = 5;
+    static final int ANNOTATION = 6;
+
+    // --- States carried across line boundaries ---
+    static final int STATE_NORMAL = 0;
+    static final int STATE_BLOCK_COMMENT = 1;
+    static final int STATE_TEXT_BLOCK = 2;
+
+    private static final String[] KEYWORDS = {
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "true", "false", "null"
+    };
+
+    // Keywords bucketed by first letter so a lookup never allocates a substring
+    private static final String[][] KEYWORDS_BY_FIRST = new String[26][];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            int n = 0;
+            for (String kw : KEYWORDS) if (kw.charAt(0) == c) n++;
+            String[] bucket = new String[n];
+            n = 0;
+            for (String kw : KEYWORDS) if (kw.charAt(0) == c) bucket[n++] = kw;
+            KEYWORDS_BY_FIRST[c - 'a'] = bucket;
+        }
+    }
+
+    // --- Flat, growable list of (kind, start, end) spans ---
+    static final class Tokens {
+        private int[] data = new int[48];
+        private int count;
+
+        int count() { return count; }
+        int kind(int i) { return data[i * 3]; }
+        int start(int i) { return data[i * 3 + 1]; }
+        int end(int i) { return data[i * 3 + 2]; }
+
+        void clear() { count = 0; }
+
+        void add(int kind, int start, int end) {
+            if (start >= end) return;
+            int at = count * 3;
+            if (at + 3 > data.length) {
+                int[] grown = new int[data.length * 2];
+                System.arraycopy(data, 0, grown, 0, at);
+                data = grown;
+            }
+            data[at] = kind;
+            data[at + 1] = start;
+            data[at + 2] = end;
+            count++;
+        }
+    }
+
+    private JavaLexer() {}
+
+    static Tokens tokenize(String src) {
+        Tokens tokens = new Tokens();
+        if (src != null) tokenize(src, 0, src.length(), STATE_NORMAL, tokens);
+        return tokens;
+    }
+
+    /**
+     * Appends the highlighted spans of {@code src[from, to)} to {@code out}, starting in
+     * {@code state}, and returns the state in effect at {@code to}.
+     */
+    static int tokenize(String src, int from, int to, int state, Tokens out) {
+        int i = from;
+
+        // Resume a construct left open by the previous chunk
+        if (state == STATE_BLOCK_COMMENT) {
+            int end = blockCommentEnd(src, i, to);
+            if (end < 0) { out.add(COMMENT, i, to); return STATE_BLOCK_COMMENT; }
+            out.add(COMMENT, i, end);
+            i = end;
+        } else if (state == STATE_TEXT_BLOCK) {
+            int end = textBlockEnd(src, i, to);
+            if (end < 0) { out.add(TEXT_BLOCK, i, to); return STATE_TEXT_BLOCK; }
+            out.add(TEXT_BLOCK, i, end);
+            i = end;
+        }
+
+        while (i < to) {
+            char c = src.charAt(i);
+
+            if (c == '/' && i + 1 < to) {
+                char next = src.charAt(i + 1);
+                if (next == '/') {
+                    int end = lineEnd(src, i, to);
+                    out.add(COMMENT, i, end);
+                    i = end;
+                    continue;
+                }
+                if (next == '*') {
+                    int end = blockCommentEnd(src, i + 2, to);
+                    if (end < 0) { out.add(COMMENT, i, to); return STATE_BLOCK_COMMENT; }
+                    out.add(COMMENT, i, end);
+                    i = end;
+                    continue;
+                }
+            } else if (c == '"') {
+                if (i + 2 < to && src.charAt(i + 1) == '"' && src.charAt(i + 2) == '"') {
+                    int end = textBlockEnd(src, i + 3, to);
+                    if (end < 0) { out.add(TEXT_BLOCK, i, to); return STATE_TEXT_BLOCK; }
+                    out.add(TEXT_BLOCK, i, end);
+                    i = end;
+                } else {
+                    int end = quotedEnd(src, i + 1, to, '"');
+                    out.add(STRING, i, end);
+                    i = end;
+                }
+                continue;
+            } else if (c == '\'') {
+                int end = quotedEnd(src, i + 1, to, '\'');
+                out.add(CHAR, i, end);
+                i = end;
+                continue;
+            } else if (c == '@' && i + 1 < to && Character.isJavaIdentifierStart(src.charAt(i + 1))) {
+                int end = identifierEnd(src, i + 1, to);
+                if (isKeyword(src, i + 1, end)) {
+                    out.add(KEYWORD, i, end); // @interface
+                } else {
+                    // Qualified annotations: @java.lang.Override
+                    while (end + 1 < to && src.charAt(end) == '.' && Character.isJavaIdentifierStart(src.charAt(end + 1))) {
+                        end = identifierEnd(src, end + 1, to);
+                    }
+                    out.add(ANNOTATION, i, end);
+                }
+                i = end;
+                continue;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = identifierEnd(src, i, to);
+                if (isKeyword(src, i, end)) out.add(KEYWORD, i, end);
+                i = end;
+                continue;
+            } else if (c >= '0' && c <= '9') {
+                // Numeric literals (1_000L, 0xFF, 2e10) are plain; consume them whole so no keyword starts inside
+                i = identifierEnd(src, i, to);
+                continue;
+            }
+            i++;
+        }
+        return STATE_NORMAL;
+    }
+
+    // ==========================================
+    // SCANNING HELPERS
+    // ==========================================
+    private static int identifierEnd(String src, int i, int to) {
+        i++;
+        while (i < to && Character.isJavaIdentifierPart(src.charAt(i))) i++;
+        return i;
+    }
+
+    private static int lineEnd(String src, int i, int to) {
+        while (i < to) {
+            char c = src.charAt(i);
+            if (c == '\n' || c == '\r') return i;
+            i++;
+        }
+        return to;
+    }
+
+    // Index just past the closing "*/", or -1 if the comment runs past {@code to}
+    private static int blockCommentEnd(String src, int i, int to) {
+        while (i + 1 < to) {
+            if (src.charAt(i) == '*' && src.charAt(i + 1) == '/') return i + 2;
+            i++;
+        }
+        return -1;
+    }
+
+    // Index just past the closing quote; an unterminated literal stops at the end of its line
+    private static int quotedEnd(String src, int i, int to, char quote) {
+        while (i < to) {
+            char c = src.charAt(i);
+            if (c == quote) return i + 1;
+            if (c == '\n' || c == '\r') return i;
+            if (c == '\\') {
+                if (i + 1 < to && src.charAt(i + 1) != '\n' && src.charAt(i + 1) != '\r') i += 2;
+                else return i + 1;
+                continue;
+            }
+            i++;
+        }
+        return to;
+    }
+
+    // Index just past the closing """, or -1 if the text block runs past {@code to}
+    private static int textBlockEnd(String src, int i, int to) {
+        while (i < to) {
+            char c = src.charAt(i);
+            if (c == '\\') { i += 2; continue; }
+            if (c == '"' && i + 2 < to && src.charAt(i + 1) == '"' && src.charAt(i + 2) == '"') return i + 3;
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean isKeyword(String src, int start, int end) {
+        char first = src.charAt(start);
+        if (first < 'a' || first > 'z') return false;
+        int len = end - start;
+        for (String kw : KEYWORDS_BY_FIRST[first - 'a']) {
+            if (kw.length() == len && src.regionMatches(start, kw, 0, len)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import java.io.File;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable queue of record generation jobs in the {@code jobs} table, one row per output file.
+ * <p>
+ * A batch enqueues its roster, then workers {@link #claim} jobs one at a time. A claim is a
+ * single {@code UPDATE ... RETURNING}, so two workers (or two processes) can never take the
+ * same job. Each job records its status, attempts, duration, output path and last error.
+ * Transient failures go back to {@code pending} with a growing delay; anything else, or a
+ * job out of attempts, ends {@code failed}.
+ * <p>
+ * Each {@link #enqueue} starts a new batch: every job of its roster is stamped with a fresh
+ * {@code batch_id}, and workers only claim jobs of that batch, so rows left over from a
+ * different roster are never picked up. Re-running a batch resumes it: jobs left
+ * {@code running} by a crash are reset to pending when the next batch is enqueued, and a
+ * {@code done} job is skipped while its {@code input_hash} (student, logo, render settings
+ * and experiment rows) is unchanged and its file still exists. One batch per database at a
+ * time is assumed.
+ */
+final class JobQueue {
+
+    static final int MAX_ATTEMPTS = 3;
+    static final long BASE_BACKOFF_MILLIS = 2000, MAX_BACKOFF_MILLIS = 60_000;
+
+    static final String PENDING = "pending", RUNNING = "running", DONE = "done", FAILED = "failed";
+
+    // Whatever a crashed run left running; no batch can still be working on it
+    private static final String RESET_RUNNING =
+            "UPDATE jobs SET status = 'pending', error = 'interrupted before it finished' WHERE status = 'running'";
+    // Done jobs stay done only when nothing they were rendered from changed (?8 = output file still exists)
+    private static final String ENQUEUE =
+            "INSERT INTO jobs(output_path, student_name, reg_no, year, db_path, logo_path, input_hash, batch_id, status) " +
+            "VALUES(?1, ?2, ?3, ?4, ?5, ?6, ?7, ?9, 'pending') " +
+            "ON CONFLICT(output_path) DO UPDATE SET student_name = excluded.student_name, reg_no = excluded.reg_no, " +
+            "year = excluded.year, db_path = excluded.db_path, logo_path = excluded.logo_path, input_hash = excluded.input_hash, " +
+            "batch_id = excluded.batch_id, " +
+            "status = CASE WHEN jobs.status = 'done' AND jobs.input_hash = excluded.input_hash AND ?8 THEN 'done' ELSE 'pending' END, " +
+            "attempts = CASE WHEN jobs.status = 'done' AND jobs.input_hash = excluded.input_hash AND ?8 THEN jobs.attempts ELSE 0 END, " +
+            "next_attempt_at = 0 " +
+            "RETURNING status";
+    private static final String CLAIM =
+            "UPDATE jobs SET status = 'running', attempts = attempts + 1, started_at = ?1, error = NULL " +
+            "WHERE id = (SELECT id FROM jobs WHERE batch_id = ?2 AND status = 'pending' AND next_attempt_at <= ?1 ORDER BY id LIMIT 1) " +
+            "RETURNING id, output_path, student_name, reg_no, year, db_path, logo_path, attempts";
+    private static final String COMPLETE =
+            "UPDATE jobs SET status = 'done', finished_at = ?, duration_ms = ?, error = NULL WHERE id = ?";
+    private static final String FAIL =
+            "UPDATE jobs SET status = ?, finished_at = ?, duration_ms = ?, error = ?, next_attempt_at = ? WHERE id = ?";
+    private static final String NEXT_RETRY = "SELECT MIN(next_attempt_at) FROM jobs WHERE batch_id = ? AND status = 'pending'";
+
+    // --- One claimed job ---
+    static final class Job {
+        final long id;
+        final String outputPath, studentName, regNo, year, dbPath, logoPath;
+        final int attempts; // including this one
+
+        Job(long id, String outputPath, String studentName, String regNo, String year, String dbPath, String logoPath, int attempts) {
+            this.id = id; this.outputPath = outputPath; this.studentName = studentName; this.regNo = regNo;
+            this.year = year; this.dbPath = dbPath; this.logoPath = logoPath; this.attempts = attempts;
+        }
+    }
+
+    // --- What to enqueue for one record ---
+    static final class Spec {
+        final File output;
+        final String studentName, regNo, year, dbPath, logoPath, inputHash;
+
+        Spec(File output, String studentName, String regNo, String year, String dbPath, String logoPath, String inputHash) {
+            this.output = output; this.studentName = studentName; this.regNo = regNo; this.year = year;
+            this.dbPath = dbPath; this.logoPath = logoPath; this.inputHash = inputHash;
+        }
+    }
+
+    private final Database db;
+    private String batchId; // set by enqueue, before any worker starts claiming
+
+    JobQueue(Database db) {
+        this.db = db;
+    }
+
+    static void createSchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS jobs (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "output_path TEXT NOT NULL UNIQUE, " +
+                "student_name TEXT NOT NULL, " +
+                "reg_no TEXT NOT NULL, " +
+                "year TEXT, " +
+                "db_path TEXT, " +                         // NULL: the workspace database
+                "logo_path TEXT, " +
+                "input_hash TEXT, " +                      // what the record is rendered from
+                "batch_id TEXT, " +                        // the enqueue that last listed this job
+                "status TEXT NOT NULL, " +                 // pending, running, done, failed
+                "attempts INTEGER NOT NULL DEFAULT 0, " +
+                "next_attempt_at INTEGER NOT NULL DEFAULT 0, " + // epoch millis; a retry waits for it
+                "started_at INTEGER, " +
+                "finished_at INTEGER, " +
+                "duration_ms INTEGER, " +
+                "error TEXT)");
+    }
+
+    // After the batch_id column is added to queues created before it existed
+    static void createIndexes(Statement stmt) throws SQLException {
+        stmt.execute("DROP INDEX IF EXISTS idx_jobs_claim");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_jobs_batch ON jobs(batch_id, status, next_attempt_at)");
+    }
+
+    /**
+     * Starts a new batch of exactly these specs: adds or refreshes a job per spec in one
+     * transaction, after putting jobs a crashed run left running back to pending. Returns how
+     * many were left done (unchanged).
+     */
+    int enqueue(List<Spec> specs, boolean force) throws SQLException {
+        String batch = UUID.randomUUID().toString();
+        int unchanged = db.inTransaction(c -> {
+            c.prepare(RESET_RUNNING).executeUpdate();
+            PreparedStatement ps = c.prepare(ENQUEUE);
+            int count = 0;
+            for (Spec s : specs) {
+                ps.setString(1, s.output.getAbsolutePath());
+                ps.setString(2, s.studentName);
+                ps.setString(3, s.regNo);
+                ps.setString(4, s.year);
+                ps.setString(5, s.dbPath);
+                ps.setString(6, s.logoPath);
+                ps.setString(7, s.inputHash);
+                ps.setBoolean(8, !force && s.output.isFile());
+                ps.setString(9, batch);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && DONE.equals(rs.getString(1))) count++;
+                }
+            }
+            return count;
+        });
+        batchId = batch;
+        return unchanged;
+    }
+
+    /** The oldest pending job of this batch that is due, now marked running; null when there is none. */
+    Job claim() throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(CLAIM);
+            ps.setLong(1, System.currentTimeMillis());
+            ps.setString(2, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new Job(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getString(6), rs.getString(7), rs.getInt(8));
+            }
+        });
+    }
+
+    void complete(Job job, long durationMillis) throws SQLException {
+        db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(COMPLETE);
+            ps.setLong(1, System.currentTimeMillis());
+            ps.setLong(2, durationMillis);
+            ps.setLong(3, job.id);
+            return ps.executeUpdate();
+        });
+    }
+
+    /** Records a failure; returns true if the job was put back for another attempt. */
+    boolean fail(Job job, long durationMillis, String error, boolean transientFailure) throws SQLException {
+        boolean retry = transientFailure && job.attempts < MAX_ATTEMPTS;
+        long now = System.currentTimeMillis();
+        db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(FAIL);
+            ps.setString(1, retry ? PENDING : FAILED);
+            ps.setLong(2, now);
+            ps.setLong(3, durationMillis);
+            ps.setString(4, error);
+            ps.setLong(5, retry ? now + backoffMillis(job.attempts) : 0);
+            ps.setLong(6, job.id);
+            return ps.executeUpdate();
+        });
+        return retry;
+    }
+
+    /** Milliseconds until the batch's next pending job is due (0 if one is due now), or -1 when none is pending. */
+    long millisUntilNextDue() throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(NEXT_RETRY);
+            ps.setString(1, batchId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return -1L;
+                long due = rs.getLong(1);
+                return rs.wasNull() ? -1L : Math.max(0, due - System.currentTimeMillis());
+            }
+        });
+    }
+
+    // 2 s, 4 s, 8 s, ... up to a minute
+    static long backoffMillis(int attempts) {
+        return Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(20, Math.max(0, attempts - 1)));
+    }
+}
@@ -0,0 +1,284 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Minimal pull parser for JSON, read straight from a {@link Reader} through one fixed
+ * buffer: each character is looked at once, so cost is linear in the input and memory
+ * is bounded by the nesting depth and the longest string ({@link #nextString(Appendable)}
+ * hands a long string over in pieces instead of holding it).
+ * <p>
+ * Callers walk the document with {@link #beginObject}/{@link #nextName}/{@link #nextString}
+ * and so on, and {@link #skipValue} anything they do not care about. Strings are returned
+ * with all escapes ({@code \"}, {@code \\}, {@code \n}, {@code \\uXXXX}, ...) decoded.
+ * Numbers, booleans and null are handed back as their literal text by {@link #nextString}.
+ */
+final class JsonReader implements Closeable {
+
+    enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+    // --- Scope stack states ---
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos, limit;
+    private long consumed; // chars before buf[0], for error offsets
+
+    private int[] stack = new int[16];
+    private int depth = 1;
+    private Token peeked;
+    private final StringBuilder text = new StringBuilder();
+
+    JsonReader(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    // ==========================================
+    // STRUCTURE
+    // ==========================================
+    Token peek() throws IOException {
+        if (peeked != null) return peeked;
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (c == -1) throw syntaxError("unterminated array");
+                pos--;
+                return peeked = peekValue();
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (c != ',') throw syntaxError("expected ',' or ']'");
+                return peeked = peekValue();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("expected ',' or '}'");
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("expected a name");
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') throw syntaxError("expected ':'");
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return peeked = peekValue();
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return peeked = peekValue();
+            default:
+                if (nextNonWhitespace() != -1) throw syntaxError("trailing content");
+                return peeked = Token.END_DOCUMENT;
+        }
+    }
+
+    boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws IOException { expect(Token.BEGIN_OBJECT); push(EMPTY_OBJECT); }
+    void endObject() throws IOException { expect(Token.END_OBJECT); depth--; }
+    void beginArray() throws IOException { expect(Token.BEGIN_ARRAY); push(EMPTY_ARRAY); }
+    void endArray() throws IOException { expect(Token.END_ARRAY); depth--; }
+
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString(null);
+    }
+
+    // Strings are decoded; numbers, booleans and null come back as their literal text
+    String nextString() throws IOException {
+        Token t = peek();
+        switch (t) {
+            case STRING: peeked = null; return readString(null);
+            case NUMBER:
+            case BOOLEAN:
+            case NULL: peeked = null; return readLiteral();
+            default: throw syntaxError("expected a value but was " + t);
+        }
+    }
+
+    // Like nextString(), but strings go to out a buffer at a time rather than being built in memory
+    void nextString(Appendable out) throws IOException {
+        if (peek() != Token.STRING) {
+            out.append(nextString());
+            return;
+        }
+        peeked = null;
+        readString(out);
+    }
+
+    // Lenient read for text fields: null, objects and arrays where a string is expected all read as ""
+    String nextText() throws IOException {
+        switch (peek()) {
+            case STRING: case NUMBER: case BOOLEAN: return nextString();
+            case NULL: nextNull(); return "";
+            default: skipValue(); return "";
+        }
+    }
+
+    boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return readLiteral().equals("true");
+    }
+
+    void nextNull() throws IOException {
+        expect(Token.NULL);
+        readLiteral();
+    }
+
+    // Skips the next value, including everything nested inside it
+    void skipValue() throws IOException {
+        int nested = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT: beginObject(); nested++; break;
+                case BEGIN_ARRAY: beginArray(); nested++; break;
+                case END_OBJECT: endObject(); nested--; break;
+                case END_ARRAY: endArray(); nested--; break;
+                case NAME: nextName(); break;
+                case END_DOCUMENT: throw syntaxError("unexpected end of document");
+                default: nextString();
+            }
+        } while (nested > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ==========================================
+    // LEXING
+    // ==========================================
+    private Token peekValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't':
+            case 'f': pos--; return Token.BOOLEAN;
+            case 'n': pos--; return Token.NULL;
+            case -1: throw syntaxError("unexpected end of document");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) { pos--; return Token.NUMBER; }
+                throw syntaxError("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void expect(Token token) throws IOException {
+        Token t = peek();
+        if (t != token) throw syntaxError("expected " + token + " but was " + t);
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+
+    // Called with the opening quote already consumed; with out, the text is passed on in pieces and null returned
+    private String readString(Appendable out) throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    text.append(buf, start, pos - 1 - start);
+                    if (out == null) return text.toString();
+                    out.append(text);
+                    return null;
+                }
+                if (c == '\\') {
+                    text.append(buf, start, pos - 1 - start);
+                    text.append(readEscape());
+                    start = pos;
+                }
+            }
+            text.append(buf, start, pos - start);
+            if (out != null) {
+                out.append(text);
+                text.setLength(0);
+            }
+            if (!fill()) throw syntaxError("unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': case '\\': case '/': return (char) c;
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw syntaxError("malformed \\u escape");
+                    value = (value << 4) | digit;
+                }
+                return (char) value; // surrogate pairs arrive as two escapes and recombine in the StringBuilder
+            default: throw syntaxError("invalid escape");
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) break;
+            char c = buf[pos];
+            if (c == ',' || c == ']' || c == '}' || c == ':' || c == ' ' || c == '\t' || c == '\r' || c == '\n') break;
+            text.append(c);
+            pos++;
+        }
+        return text.toString();
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return -1;
+            char c = buf[pos++];
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') return c;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) throw syntaxError("unexpected end of document");
+        return buf[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = limit = 0;
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON at offset " + (consumed + pos) + ": " + message);
+    }
+}
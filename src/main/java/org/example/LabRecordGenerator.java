@@ -1,72 +1,53 @@
 package org.example;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.nio.file.Files;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.*;
-
-// OpenPDF Imports
-import com.lowagie.text.Chunk;
-import com.lowagie.text.Document;
-import com.lowagie.text.DocumentException;
-import com.lowagie.text.Element;
-import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
-import com.lowagie.text.Image;
-import com.lowagie.text.PageSize;
-import com.lowagie.text.Paragraph;
-import com.lowagie.text.Phrase;
-import com.lowagie.text.Rectangle;
-import com.lowagie.text.pdf.ColumnText;
-import com.lowagie.text.pdf.PdfContentByte;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfPageEventHelper;
-import com.lowagie.text.pdf.PdfWriter;
-import com.lowagie.text.pdf.draw.LineSeparator;
+import java.util.Map;
+import java.util.Set;
 
 public class LabRecordGenerator extends JFrame {
 
+    private static final int SEARCH_DEBOUNCE_MILLIS = 250;
+
     // --- UI Components ---
-    private JTextField tfName, tfRegNo, tfYear;
+    private JTextField tfName, tfRegNo, tfYear, tfOutputDir;
     private JLabel lblLogoStatus;
     private JTable table;
-    private DefaultTableModel tableModel;
-    private JButton btnGenerate, btnAddExp, btnEditExp, btnDeleteExp, btnSelectLogo, btnImportLocal;
+    private ExperimentTableModel tableModel;
+    private JTextField tfFilter;
+    private JTextField tfSearch;
+    private JLabel lblSearchStatus;
+    private DefaultListModel<SearchIndex.Hit> searchHits;
+    private JList<SearchIndex.Hit> lstSearchHits;
+    private JScrollPane scrSearchHits;
+    private javax.swing.Timer searchDebounce;
+    private int searchGeneration; // EDT only; results of an older query are dropped
+    private JButton btnGenerate, btnAddExp, btnEditExp, btnDeleteExp, btnSelectLogo, btnSelectOutputDir, btnImportLocal, btnBulkImport;
     private String logoPath = "";
-
-    // --- Database connection ---
-    private Connection conn;
-
-    // --- Syntax Highlighting Constants ---
-    private static final Color COL_KEYWORD = new Color(0, 0, 255);
-    private static final Color COL_STRING = new Color(163, 21, 21);
-    private static final Color COL_COMMENT = new Color(0, 128, 0);
-    private static final Color COL_CODE_BG = new Color(245, 245, 245);
-    private static final Color COL_OUTPUT_BG = new Color(240, 240, 240);
-    private static final Pattern JAVA_PATTERN = Pattern.compile(
-            "\\b(public|private|protected|class|static|void|int|double|float|char|boolean|if|else|for|while|return|new|import|package|try|catch|throws|throw|extends|implements|interface|byte|short|long|switch|case|default|break|continue|final)\\b|\".*?\"|//.*|/\\*[\\s\\S]*?\\*/"
-    );
-
-    // --- POJO for PDF Generation ---
-    static class Experiment {
-        int id;
-        String no, name, date, aim, code, input, output, outputImagePath;
-
-        public Experiment(int id, String no, String name, String date, String aim, String code, String input, String output, String outputImagePath) {
-            this.id = id; this.no = no; this.name = name; this.date = date; this.aim = aim;
-            this.code = code; this.input = input; this.output = output; this.outputImagePath = outputImagePath;
-        }
-    }
+    private JProgressBar progressBar;
+    private JButton btnCancelGenerate;
+    private SwingWorker<RecordRenderer.RenderStats, int[]> generationWorker;
+    private JCheckBox chkWatchRepos;
+    private volatile RepositoryWatcher repoWatcher;
+
+    // --- Database (pooled; safe to use from background workers) ---
+    private Database db;
+    private ExperimentDao experimentDao;
+    private SettingsDao settingsDao;
+    private SearchIndex searchIndex;
+    private volatile Set<String> prunedDirs = SourceIndex.DEFAULT_PRUNED_DIRS; // "pruned_dirs" setting
 
     public LabRecordGenerator() {
         // --- GUI SETUP ---
@@ -76,7 +57,7 @@ public class LabRecordGenerator extends JFrame {
         setLayout(new BorderLayout(10, 10));
 
         // --- TOP PANEL (Student Details) ---
-        JPanel pnlTop = new JPanel(new GridLayout(2, 4, 10, 10));
+        JPanel pnlTop = new JPanel(new GridLayout(3, 4, 10, 10));
         pnlTop.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         pnlTop.add(new JLabel("Student Name:"));
@@ -97,18 +78,79 @@ public class LabRecordGenerator extends JFrame {
         pnlTop.add(btnSelectLogo);
         pnlTop.add(lblLogoStatus);
 
+        // Empty means the default (Desktop, or home when there is none)
+        pnlTop.add(new JLabel("Output Folder:"));
+        tfOutputDir = new JTextField();
+        tfOutputDir.setToolTipText("Default: " + AppPaths.defaultOutputDir());
+        pnlTop.add(tfOutputDir);
+        btnSelectOutputDir = new JButton("Choose Output Folder");
+        pnlTop.add(btnSelectOutputDir);
+        pnlTop.add(new JLabel());
+
         add(pnlTop, BorderLayout.NORTH);
 
         // --- CENTER PANEL (Table) ---
-        tableModel = new DefaultTableModel(new String[]{"ID", "Exp No", "Experiment Title", "Date Added"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        initDatabase(); // the table pages rows straight from the database
+        tableModel = new ExperimentTableModel(experimentDao);
         table = new JTable(tableModel);
         table.getColumnModel().getColumn(0).setMinWidth(0);
         table.getColumnModel().getColumn(0).setMaxWidth(0);
         table.getColumnModel().getColumn(0).setWidth(0);
-        add(new JScrollPane(table), BorderLayout.CENTER);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column < 0) return;
+                tableModel.toggleSort(table.convertColumnIndexToModel(column));
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    table.getColumnModel().getColumn(i).setHeaderValue(tableModel.getColumnName(table.convertColumnIndexToModel(i)));
+                }
+                table.getTableHeader().repaint();
+            }
+        });
+
+        JPanel pnlCenter = new JPanel(new BorderLayout(5, 5));
+        JPanel pnlFilter = new JPanel(new GridLayout(1, 2, 10, 0));
+        pnlFilter.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+        JPanel pnlFilterField = new JPanel(new BorderLayout(5, 0));
+        tfFilter = new JTextField();
+        tfFilter.setToolTipText("Show only experiments whose number or title contains this text");
+        pnlFilterField.add(new JLabel("Filter:"), BorderLayout.WEST);
+        pnlFilterField.add(tfFilter, BorderLayout.CENTER);
+        pnlFilter.add(pnlFilterField);
+
+        // --- Full-text search (title, aim, code, output) ---
+        JPanel pnlSearchField = new JPanel(new BorderLayout(5, 0));
+        tfSearch = new JTextField();
+        tfSearch.setToolTipText("Search titles, aims, code and output of every experiment, e.g. ArrayList");
+        lblSearchStatus = new JLabel();
+        pnlSearchField.add(new JLabel("Search:"), BorderLayout.WEST);
+        pnlSearchField.add(tfSearch, BorderLayout.CENTER);
+        pnlSearchField.add(lblSearchStatus, BorderLayout.EAST);
+        pnlFilter.add(pnlSearchField);
+        pnlCenter.add(pnlFilter, BorderLayout.NORTH);
+
+        searchHits = new DefaultListModel<>();
+        lstSearchHits = new JList<>(searchHits);
+        lstSearchHits.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        lstSearchHits.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                SearchIndex.Hit hit = (SearchIndex.Hit) value;
+                String html = "<html><b>" + escapeHtml(hit.no + " - " + hit.title) + "</b><br><font size=-1>" + snippetHtml(hit.snippet) + "</font></html>";
+                return super.getListCellRendererComponent(list, html, index, isSelected, cellHasFocus);
+            }
+        });
+        scrSearchHits = new JScrollPane(lstSearchHits);
+        scrSearchHits.setPreferredSize(new Dimension(380, 0));
+        scrSearchHits.setVisible(false);
+
+        JPanel pnlResults = new JPanel(new BorderLayout(5, 0));
+        pnlResults.add(new JScrollPane(table), BorderLayout.CENTER);
+        pnlResults.add(scrSearchHits, BorderLayout.EAST);
+        pnlCenter.add(pnlResults, BorderLayout.CENTER);
+        add(pnlCenter, BorderLayout.CENTER);
 
         // --- BOTTOM PANEL (Action Buttons) ---
         JPanel pnlBottom = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
@@ -117,6 +159,7 @@ public class LabRecordGenerator extends JFrame {
         btnEditExp = new JButton("Edit Selected");
         btnDeleteExp = new JButton("Delete Selected");
         btnImportLocal = new JButton("Import from Local Repo");
+        btnBulkImport = new JButton("Bulk Import Folder");
         btnGenerate = new JButton("Generate PDF Record");
 
         btnGenerate.setBackground(new Color(46, 204, 113));
@@ -126,19 +169,34 @@ public class LabRecordGenerator extends JFrame {
         pnlBottom.add(btnEditExp);
         pnlBottom.add(btnDeleteExp);
         pnlBottom.add(btnImportLocal);
+        pnlBottom.add(btnBulkImport);
         pnlBottom.add(btnGenerate);
 
+        chkWatchRepos = new JCheckBox("Watch Imported Repos");
+        chkWatchRepos.setToolTipText("Re-import an experiment automatically when its repository changes");
+        pnlBottom.add(chkWatchRepos);
+
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        btnCancelGenerate = new JButton("Cancel");
+        btnCancelGenerate.setVisible(false);
+        pnlBottom.add(progressBar);
+        pnlBottom.add(btnCancelGenerate);
+
         add(pnlBottom, BorderLayout.SOUTH);
 
         // --- INIT DATABASE & LOAD DATA ---
-        initDatabase();
         loadSettings(); // Auto-populate feature
         loadDataFromDb();
 
         // --- EVENT LISTENERS ---
         addWindowListener(new WindowAdapter() {
             @Override
-            public void windowClosing(WindowEvent windowEvent) { saveSettings(); }
+            public void windowClosing(WindowEvent windowEvent) {
+                saveSettings();
+                if (db != null) db.close(); // last connection out checkpoints the WAL
+            }
         });
 
         FocusAdapter saveOnBlur = new FocusAdapter() {
@@ -148,14 +206,43 @@ public class LabRecordGenerator extends JFrame {
         tfName.addFocusListener(saveOnBlur);
         tfRegNo.addFocusListener(saveOnBlur);
         tfYear.addFocusListener(saveOnBlur);
+        tfOutputDir.addFocusListener(saveOnBlur);
+
+        tfFilter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { tableModel.setFilter(tfFilter.getText()); }
+            @Override public void removeUpdate(DocumentEvent e) { tableModel.setFilter(tfFilter.getText()); }
+            @Override public void changedUpdate(DocumentEvent e) { tableModel.setFilter(tfFilter.getText()); }
+        });
+
+        // Queries run once typing pauses, and again whenever the table's rows change
+        searchDebounce = new javax.swing.Timer(SEARCH_DEBOUNCE_MILLIS, e -> runSearch());
+        searchDebounce.setRepeats(false);
+        tfSearch.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { searchDebounce.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { searchDebounce.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { searchDebounce.restart(); }
+        });
+        tableModel.addTableModelListener(e -> {
+            if (!tfSearch.getText().trim().isEmpty()) searchDebounce.restart();
+        });
+        lstSearchHits.addListSelectionListener(e -> {
+            SearchIndex.Hit hit = lstSearchHits.getSelectedValue();
+            if (!e.getValueIsAdjusting() && hit != null) selectExperimentRow(hit.id);
+        });
+        lstSearchHits.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                SearchIndex.Hit hit = lstSearchHits.getSelectedValue();
+                if (e.getClickCount() == 2 && hit != null) openExperimentDialog(getExperimentById(hit.id));
+            }
+        });
 
         btnAddExp.addActionListener(e -> openExperimentDialog(null));
 
         btnEditExp.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row != -1) {
-                int id = (int) tableModel.getValueAt(row, 0);
-                openExperimentDialog(getExperimentById(id));
+                openExperimentDialog(getExperimentById(tableModel.idAt(row)));
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an experiment to edit.");
             }
@@ -164,9 +251,11 @@ public class LabRecordGenerator extends JFrame {
         btnDeleteExp.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row != -1) {
-                int id = (int) tableModel.getValueAt(row, 0);
+                int id = tableModel.idAt(row);
                 if(JOptionPane.showConfirmDialog(this, "Are you sure you want to delete this experiment?", "Confirm", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                    deleteExperimentFromDb(id);
+                    Experiment deleted = getExperimentById(id);
+                    if (repoWatcher != null && deleted != null && deleted.repoPath != null) repoWatcher.unwatch(new File(deleted.repoPath));
+                    deleteExperimentFromDb(id, row);
                 }
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an experiment to delete.");
@@ -181,6 +270,15 @@ public class LabRecordGenerator extends JFrame {
             }
         });
 
+        btnBulkImport.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Select the folder containing the assignment repositories");
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                bulkImportFromFolder(chooser.getSelectedFile());
+            }
+        });
+
         btnSelectLogo.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
             if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
@@ -191,7 +289,21 @@ public class LabRecordGenerator extends JFrame {
             }
         });
 
+        btnSelectOutputDir.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(outputDirectory());
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                tfOutputDir.setText(chooser.getSelectedFile().getAbsolutePath());
+                saveSettings();
+            }
+        });
+
+        chkWatchRepos.addActionListener(e -> setWatching(chkWatchRepos.isSelected()));
+
         btnGenerate.addActionListener(e -> generatePdfFile());
+        btnCancelGenerate.addActionListener(e -> {
+            if (generationWorker != null) generationWorker.cancel(false);
+        });
     }
 
     // ==========================================
@@ -199,40 +311,10 @@ public class LabRecordGenerator extends JFrame {
     // ==========================================
     private void initDatabase() {
         try {
-            // Create a dedicated hidden folder in the user's home directory
-            String userHome = System.getProperty("user.home");
-            File appDir = new File(userHome, ".lab_record_app");
-            if (!appDir.exists()) {
-                appDir.mkdirs(); // Create the directory if it doesn't exist
-            }
-            String dbPath = appDir.getAbsolutePath() + File.separator + "lab_records.db";
-
-            conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
-            Statement stmt = conn.createStatement();
-
-            // Experiments table (updated to support all fields)
-            String sqlExp = "CREATE TABLE IF NOT EXISTS experiments (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "exp_no TEXT NOT NULL," +
-                    "title TEXT NOT NULL," +
-                    "date TEXT," +
-                    "aim TEXT," +
-                    "code TEXT," +
-                    "input TEXT," +
-                    "output TEXT," +
-                    "image_path TEXT)";
-            stmt.execute(sqlExp);
-
-            // Settings table for Auto-populate
-            String sqlSettings = "CREATE TABLE IF NOT EXISTS settings (" +
-                    "key_name TEXT PRIMARY KEY, " +
-                    "key_value TEXT)";
-            stmt.execute(sqlSettings);
-
-            // Migrate older databases just in case
-            try { stmt.execute("ALTER TABLE experiments ADD COLUMN input text;"); } catch (SQLException ignore) {}
-            try { stmt.execute("ALTER TABLE experiments ADD COLUMN image_path text;"); } catch (SQLException ignore) {}
-
+            db = Database.openWorkspace();
+            experimentDao = new ExperimentDao(db);
+            settingsDao = new SettingsDao(db);
+            searchIndex = new SearchIndex(db);
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage());
@@ -240,37 +322,31 @@ public class LabRecordGenerator extends JFrame {
     }
 
     private void saveSettings() {
-        if (conn == null) return;
-        String sql = "INSERT OR REPLACE INTO settings (key_name, key_value) VALUES (?, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            saveSettingRow(pstmt, "student_name", tfName.getText());
-            saveSettingRow(pstmt, "reg_no", tfRegNo.getText());
-            saveSettingRow(pstmt, "year_sem", tfYear.getText());
-            saveSettingRow(pstmt, "logo_path", logoPath);
+        if (db == null) return;
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("student_name", tfName.getText());
+        values.put("reg_no", tfRegNo.getText());
+        values.put("year_sem", tfYear.getText());
+        values.put("logo_path", logoPath);
+        values.put("output_dir", tfOutputDir.getText().trim());
+        try {
+            settingsDao.putAll(values);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    private void saveSettingRow(PreparedStatement pstmt, String key, String value) throws SQLException {
-        pstmt.setString(1, key);
-        pstmt.setString(2, value);
-        pstmt.executeUpdate();
-    }
-
     private void loadSettings() {
-        String sql = "SELECT key_name, key_value FROM settings";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String key = rs.getString("key_name");
-                String value = rs.getString("key_value");
-                if (value == null) value = "";
-
-                switch (key) {
+        if (db == null) return;
+        try {
+            for (Map.Entry<String, String> entry : settingsDao.loadAll().entrySet()) {
+                String value = entry.getValue();
+                switch (entry.getKey()) {
                     case "student_name": tfName.setText(value); break;
                     case "reg_no": tfRegNo.setText(value); break;
                     case "year_sem": tfYear.setText(value); break;
+                    case "output_dir": tfOutputDir.setText(value); break;
+                    case SourceIndex.PRUNED_DIRS_SETTING: prunedDirs = SourceIndex.prunedDirs(value); break;
                     case "logo_path":
                         logoPath = value;
                         if (!logoPath.isEmpty()) {
@@ -288,81 +364,47 @@ public class LabRecordGenerator extends JFrame {
         }
     }
 
+    // Full table refresh; single-row edits below apply deltas instead
     private void loadDataFromDb() {
-        tableModel.setRowCount(0);
-        try {
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT id, exp_no, title, date FROM experiments ORDER BY CAST(exp_no AS INTEGER)");
-            while (rs.next()) {
-                tableModel.addRow(new Object[]{
-                        rs.getInt("id"),
-                        rs.getString("exp_no"),
-                        rs.getString("title"),
-                        rs.getString("date")
-                });
-            }
-        } catch (SQLException e) { e.printStackTrace(); }
+        if (db == null) return;
+        tableModel.reload();
     }
 
-    private Experiment getExperimentById(int id) {
+    // All rows, regardless of the table filter
+    private int experimentCount() {
         try {
-            PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM experiments WHERE id = ?");
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new Experiment(
-                        rs.getInt("id"), rs.getString("exp_no"), rs.getString("title"),
-                        rs.getString("date"), rs.getString("aim"), rs.getString("code"),
-                        rs.getString("input"), rs.getString("output"), rs.getString("image_path")
-                );
-            }
-        } catch (SQLException e) { e.printStackTrace(); }
-        return null;
+            return experimentDao.count();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return tableModel.getRowCount();
+        }
     }
 
-    private List<Experiment> getAllExperiments() {
-        List<Experiment> list = new ArrayList<>();
+    private Experiment getExperimentById(int id) {
         try {
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM experiments ORDER BY CAST(exp_no AS INTEGER)");
-            while (rs.next()) {
-                list.add(new Experiment(
-                        rs.getInt("id"), rs.getString("exp_no"), rs.getString("title"),
-                        rs.getString("date"), rs.getString("aim"), rs.getString("code"),
-                        rs.getString("input"), rs.getString("output"), rs.getString("image_path")
-                ));
-            }
+            return experimentDao.findById(id);
         } catch (SQLException e) { e.printStackTrace(); }
-        return list;
+        return null;
     }
 
     private void saveExperimentToDb(String expNo, String title, String date, String aim, String code, String in, String out, String imgPath) {
-        String sql = "INSERT INTO experiments(exp_no, title, date, aim, code, input, output, image_path) VALUES(?,?,?,?,?,?,?,?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, expNo); pstmt.setString(2, title); pstmt.setString(3, date);
-            pstmt.setString(4, aim); pstmt.setString(5, code); pstmt.setString(6, in);
-            pstmt.setString(7, out); pstmt.setString(8, imgPath);
-            pstmt.executeUpdate();
-            loadDataFromDb();
+        try {
+            int id = experimentDao.insert(new Experiment(0, expNo, title, date, aim, code, in, out, imgPath));
+            tableModel.experimentInserted(id);
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
     private void updateExperimentInDb(int id, String expNo, String title, String date, String aim, String code, String in, String out, String imgPath) {
-        String sql = "UPDATE experiments SET exp_no=?, title=?, date=?, aim=?, code=?, input=?, output=?, image_path=? WHERE id=?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, expNo); pstmt.setString(2, title); pstmt.setString(3, date);
-            pstmt.setString(4, aim); pstmt.setString(5, code); pstmt.setString(6, in);
-            pstmt.setString(7, out); pstmt.setString(8, imgPath); pstmt.setInt(9, id);
-            pstmt.executeUpdate();
-            loadDataFromDb();
+        try {
+            experimentDao.update(new Experiment(id, expNo, title, date, aim, code, in, out, imgPath));
+            tableModel.experimentUpdated(id);
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
-    private void deleteExperimentFromDb(int id) {
-        String sql = "DELETE FROM experiments WHERE id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, id); pstmt.executeUpdate();
-            loadDataFromDb();
+    private void deleteExperimentFromDb(int id, int row) {
+        try {
+            experimentDao.delete(id);
+            tableModel.experimentDeleted(row);
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
@@ -384,7 +426,7 @@ public class LabRecordGenerator extends JFrame {
         JTextField dTfName = new JTextField(20);
         JTextField dTfDate = new JTextField(new SimpleDateFormat("dd/MM/yyyy").format(new Date()));
         JTextArea dTaAim = new JTextArea(3, 40);
-        JTextArea dTaCode = new JTextArea(10, 40);
+        HighlightedCodePane dTaCode = new HighlightedCodePane(10, 40); // highlighted like the PDF listing
         JTextArea dTaInput = new JTextArea(4, 40);
         JTextArea dTaOutput = new JTextArea(4, 40);
 
@@ -415,7 +457,7 @@ public class LabRecordGenerator extends JFrame {
                 }
             }
         } else {
-            dTfNo.setText(String.valueOf(tableModel.getRowCount() + 1));
+            dTfNo.setText(String.valueOf(experimentCount() + 1));
         }
 
         btnSelectOutputImage.addActionListener(ev -> {
@@ -442,11 +484,11 @@ public class LabRecordGenerator extends JFrame {
         dialog.add(btnSave, gbc);
 
         btnSave.addActionListener(ev -> {
-            // Sanitize all rich text components prior to pushing them to DB
-            String sanitizedAim = dTaAim.getText().replace("\u00A0", " ").replace("\t", "    ");
-            String sanitizedCode = dTaCode.getText().replace("\u00A0", " ").replace("\t", "    ");
-            String sanitizedInput = dTaInput.getText().replace("\u00A0", " ").replace("\t", "    ");
-            String sanitizedOutput = dTaOutput.getText().replace("\u00A0", " ").replace("\t", "    ");
+            // Sanitize all rich text components prior to pushing them to DB; pasted I/O is held to the output budget
+            String sanitizedAim = OutputText.sanitize(dTaAim.getText());
+            String sanitizedCode = OutputText.sanitize(dTaCode.getText());
+            String sanitizedInput = OutputText.DEFAULT.bound(dTaInput.getText());
+            String sanitizedOutput = OutputText.DEFAULT.bound(dTaOutput.getText());
 
             if (isEdit) {
                 updateExperimentInDb(expToEdit.id, dTfNo.getText(), dTfName.getText(), dTfDate.getText(), sanitizedAim, sanitizedCode, sanitizedInput, sanitizedOutput, currentOutputImagePath[0]);
@@ -464,486 +506,328 @@ public class LabRecordGenerator extends JFrame {
     // LOCAL REPOSITORY IMPORT LOGIC
     // ==========================================
     public void importFromRepository(File repoDir) {
-        String expName = "Imported Experiment";
-        String expNo = String.valueOf(tableModel.getRowCount() + 1);
-
-        File readmeFile = new File(repoDir, "README.md");
-        if (!readmeFile.exists()) readmeFile = new File(repoDir, "readme.md");
-
-        if (readmeFile.exists()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(readmeFile))) {
-                String line;
-                Pattern pattern = Pattern.compile("(?i)#\\s*Experiment\\s+(\\d+)[\\s:\\-]*(.*)");
+        PhaseMetrics metrics = new PhaseMetrics("import");
+        Experiment exp = RepositoryImporter.parse(repoDir, String.valueOf(experimentCount() + 1), prunedDirs, metrics);
 
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    if (line.isEmpty()) continue;
-
-                    Matcher matcher = pattern.matcher(line);
-                    if (matcher.find()) {
-                        expNo = matcher.group(1).trim();
-                        expName = matcher.group(2).trim();
-                        break;
-                    } else if (line.startsWith("# ") && !line.toLowerCase().contains("![review assignment")) {
-                        expName = line.replace("#", "").trim();
-                        break;
-                    }
-                }
-            } catch (Exception e) { e.printStackTrace(); }
+        try {
+            int existingId = metrics.time(PhaseMetrics.Phase.DATABASE, () -> experimentDao.idForRepoPath(exp.repoPath));
+            int written = metrics.time(PhaseMetrics.Phase.DATABASE, () -> experimentDao.upsertImported(List.of(exp)));
+            if (written > 0 && existingId >= 0) tableModel.experimentUpdated(existingId);
+            else if (written > 0) tableModel.experimentInserted(experimentDao.idForRepoPath(exp.repoPath));
+            watchIfEnabled(List.of(exp.repoPath));
+            metrics.finish();
+            String message = written > 0
+                    ? "Successfully imported Experiment " + exp.no + ": '" + exp.name + "'!"
+                    : "'" + exp.name + "' is already imported and up to date.";
+            JOptionPane.showMessageDialog(this, message + "\n\nTime: " + metrics.summary(), "Import Success", JOptionPane.INFORMATION_MESSAGE);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Import failed: " + e.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
         }
+    }
 
-        File autogradingFile = new File(repoDir, ".github/classroom/autograding.json");
-        String input = "", output = "", runCmd = "";
-
-        if (autogradingFile.exists()) {
-            try {
-                String jsonContent = new String(Files.readAllBytes(autogradingFile.toPath()));
-                String[] blocks = jsonContent.split("\\{");
+    // Parses every repo under parentDir off the EDT, then writes all rows in one transaction
+    private void bulkImportFromFolder(File parentDir) {
+        int firstExpNo = experimentCount() + 1;
+        btnBulkImport.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-                for (String block : blocks) {
-                    if (block.contains("\"name\"") && block.contains("\"run\"")) {
-                        runCmd = extractJsonValue(block, "run");
-                        input = extractJsonValue(block, "input");
-                        output = extractJsonValue(block, "output");
-                        break;
-                    }
+        new SwingWorker<List<RepositoryImporter.Outcome>, Void>() {
+            @Override
+            protected List<RepositoryImporter.Outcome> doInBackground() throws Exception {
+                List<RepositoryImporter.Outcome> outcomes = RepositoryImporter.parseAll(parentDir, firstExpNo, prunedDirs);
+                List<Experiment> parsed = new ArrayList<>();
+                for (RepositoryImporter.Outcome o : outcomes) {
+                    if (o.imported()) parsed.add(o.experiment);
                 }
-            } catch (Exception e) { e.printStackTrace(); }
-        }
-
-        File srcDir = new File(repoDir, "src");
-        String code = "// Could not find 'src' folder or .java files.";
-
-        if (srcDir.exists() && srcDir.isDirectory()) {
-            String className = "";
-            if (runCmd != null && !runCmd.isEmpty()) {
-                String[] parts = runCmd.trim().split(" ");
-                className = parts[parts.length - 1].replace(".java", "").trim();
-                if (className.contains(".")) className = className.substring(className.lastIndexOf(".") + 1);
+                experimentDao.upsertImported(parsed);
+                List<String> repoPaths = new ArrayList<>();
+                for (Experiment exp : parsed) repoPaths.add(exp.repoPath);
+                watchIfEnabled(repoPaths);
+                return outcomes;
             }
 
-            File javaFile = (!className.isEmpty()) ? findJavaFile(srcDir, className) : null;
-            if (javaFile == null) javaFile = findFirstJavaFile(srcDir);
-
-            if (javaFile != null && javaFile.exists()) {
-                try { code = new String(Files.readAllBytes(javaFile.toPath())); }
-                catch (Exception e) { code = "// Error reading Java file."; }
-            } else { code = "// Could not find the main Java file in the src directory."; }
-        }
-
-        String date = new SimpleDateFormat("dd/MM/yyyy").format(new Date());
-        String aim = "To implement " + expName;
-
-        saveExperimentToDb(expNo, expName, date, aim, code, input, output, "");
-        JOptionPane.showMessageDialog(this, "Successfully imported Experiment " + expNo + ": '" + expName + "'!", "Import Success", JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    private String extractJsonValue(String jsonBlock, String key) {
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*\"(.*?)\"");
-        Matcher matcher = pattern.matcher(jsonBlock);
-        if (matcher.find()) { return matcher.group(1).replace("\\n", "\n").replace("\\r", "\r"); }
-        return "";
-    }
-
-    private File findJavaFile(File dir, String className) {
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    File found = findJavaFile(file, className);
-                    if (found != null) return found;
-                } else if (file.getName().equals(className + ".java")) return file;
+            @Override
+            protected void done() {
+                btnBulkImport.setEnabled(true);
+                setCursor(Cursor.getDefaultCursor());
+                loadDataFromDb();
+                try {
+                    showBulkImportSummary(get());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    cause.printStackTrace();
+                    JOptionPane.showMessageDialog(LabRecordGenerator.this, "Bulk import failed: " + cause.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
-        }
-        return null;
+        }.execute();
     }
 
-    private File findFirstJavaFile(File dir) {
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    File found = findFirstJavaFile(file);
-                    if (found != null) return found;
-                } else if (file.getName().endsWith(".java")) return file;
+    private void showBulkImportSummary(List<RepositoryImporter.Outcome> outcomes) {
+        StringBuilder imported = new StringBuilder(), skipped = new StringBuilder();
+        int importedCount = 0, skippedCount = 0;
+        for (RepositoryImporter.Outcome o : outcomes) {
+            if (o.imported()) {
+                importedCount++;
+                imported.append("  Experiment ").append(o.experiment.no).append(": ").append(o.experiment.name)
+                        .append("  (").append(o.repoDir.getName()).append(")\n");
+            } else {
+                skippedCount++;
+                skipped.append("  ").append(o.repoDir.getName()).append(" - ").append(o.skipReason).append("\n");
             }
         }
-        return null;
+
+        JTextArea summary = new JTextArea("Imported " + importedCount + " repositories, skipped " + skippedCount + ".\n\n"
+                + (importedCount > 0 ? "Imported:\n" + imported + "\n" : "")
+                + (skippedCount > 0 ? "Skipped:\n" + skipped : ""));
+        summary.setEditable(false);
+        JScrollPane scroll = new JScrollPane(summary);
+        scroll.setPreferredSize(new Dimension(550, 300));
+        JOptionPane.showMessageDialog(this, scroll, "Bulk Import Summary", JOptionPane.INFORMATION_MESSAGE);
     }
 
     // ==========================================
-    // PDF GENERATION (Aesthetic Upgrade)
+    // FULL-TEXT SEARCH
     // ==========================================
-    private void generatePdfFile() {
-        if (tfName.getText().isEmpty() || tfRegNo.getText().isEmpty() || tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, "Please fill student details and add at least one experiment.");
+    // Runs the query off the EDT; only the newest query's results are shown
+    private void runSearch() {
+        String text = tfSearch.getText();
+        int generation = ++searchGeneration;
+        if (searchIndex == null || text.trim().isEmpty()) {
+            searchHits.clear();
+            lblSearchStatus.setText("");
+            scrSearchHits.setVisible(false);
+            revalidate();
             return;
         }
+        new SwingWorker<SearchIndex.Result, Void>() {
+            private long elapsedMillis;
 
-        saveSettings();
-        List<Experiment> experiments = getAllExperiments();
-
-        // Increased left and right margins to 70
-        Document doc = new Document(PageSize.A4, 70, 70, 50, 50);
-        String desktopPath = System.getProperty("user.home") + File.separator + "Desktop";
-        String fileName = desktopPath + File.separator + "Lab_Record_" + tfRegNo.getText() + ".pdf";
-
-        try {
-            PdfWriter writer = PdfWriter.getInstance(doc, new FileOutputStream(fileName));
-
-            // Header: OOP (Java) Lab Record - Name
-            String headerText = "OOP (Java) Lab Record - " + tfName.getText();
-            HeaderFooterPageEvent event = new HeaderFooterPageEvent(headerText);
-            writer.setPageEvent(event);
-
-            doc.open();
-
-            // 1. TITLE PAGE
-            addTitlePage(doc);
-
-            // 2. INDEX PAGE
-            doc.newPage();
-            Paragraph indexTitle = new Paragraph("INDEX", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16));
-            indexTitle.setAlignment(Element.ALIGN_CENTER);
-            doc.add(indexTitle);
-            doc.add(new Paragraph("\n"));
-
-            // Index Table
-            PdfPTable indexTable = new PdfPTable(new float[]{1, 5, 2.5f, 2});
-            indexTable.setWidthPercentage(100);
-            indexTable.setHeaderRows(1);
-
-            addHeaderCell(indexTable, "No.");
-            addHeaderCell(indexTable, "Experiment Name");
-            addHeaderCell(indexTable, "Date");
-            addHeaderCell(indexTable, "Sign");
-
-            for (Experiment exp : experiments) {
-                addCell(indexTable, exp.no, Element.ALIGN_CENTER);
-                addCell(indexTable, exp.name, Element.ALIGN_LEFT);
-                addCell(indexTable, exp.date, Element.ALIGN_CENTER);
-                addCell(indexTable, "", Element.ALIGN_CENTER);
+            @Override
+            protected SearchIndex.Result doInBackground() throws Exception {
+                long start = System.nanoTime();
+                SearchIndex.Result result = searchIndex.search(text, SearchIndex.DEFAULT_LIMIT);
+                elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                return result;
             }
-            doc.add(indexTable);
-
-            // 3. EXPERIMENTS LOOP
-            for (Experiment exp : experiments) {
-                doc.newPage();
-
-                // Header style: Experiment 1: Name
-                Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
-                Paragraph expTitle = new Paragraph("Experiment " + exp.no + ": " + exp.name, titleFont);
-                expTitle.setSpacingAfter(8f);
-                doc.add(expTitle);
-
-                Paragraph datePara = new Paragraph("Date: " + exp.date, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11));
-                datePara.setSpacingAfter(20f);
-                doc.add(datePara);
-
-                // Aim
-                addSectionHeader(doc, "Aim");
-                Paragraph aimText = new Paragraph(exp.aim, FontFactory.getFont(FontFactory.HELVETICA, 11));
-                aimText.setSpacingAfter(15f);
-                doc.add(aimText);
-
-                // Code
-                addSectionHeader(doc, "Program Code");
-                addHighlightedCodeBlock(doc, exp.code);
-                doc.add(new Paragraph("\n"));
-
-                // Input (Optional)
-                if (exp.input != null && !exp.input.trim().isEmpty()) {
-                    addSectionHeader(doc, "Input");
-                    addOutputBlock(doc, exp.input);
-                    doc.add(new Paragraph("\n"));
-                }
-
-                // Output (Text & Image)
-                addSectionHeader(doc, "Output");
-
-                // Text Output
-                if (exp.output != null && !exp.output.trim().isEmpty()) {
-                    addOutputBlock(doc, exp.output);
-                }
-
-                // Image Output (for Swing/GUI)
-                if (exp.outputImagePath != null && !exp.outputImagePath.trim().isEmpty()) {
-                    try {
-                        Image img = Image.getInstance(exp.outputImagePath);
-
-                        // Scale to fit page width, leaving some margin
-                        float documentWidth = doc.getPageSize().getWidth() - doc.leftMargin() - doc.rightMargin();
-                        if (img.getWidth() > documentWidth) {
-                            img.scaleToFit(documentWidth, doc.getPageSize().getHeight() - doc.topMargin() - doc.bottomMargin());
-                        }
-
-                        img.setBorder(Rectangle.BOX);
-                        img.setBorderWidth(1f);
-                        img.setBorderColor(Color.GRAY);
-                        img.setAlignment(Element.ALIGN_CENTER);
-                        img.setSpacingBefore(10f);
-                        img.setSpacingAfter(10f);
 
-                        doc.add(img);
-                    } catch (Exception ex) {
-                        System.err.println("Could not load output image: " + exp.outputImagePath);
-                    }
+            @Override
+            protected void done() {
+                if (generation != searchGeneration) return; // typing moved on
+                try {
+                    SearchIndex.Result result = get();
+                    searchHits.clear();
+                    for (SearchIndex.Hit hit : result.hits) searchHits.addElement(hit);
+                    String shown = result.totalMatches > result.hits.size() ? " (best " + result.hits.size() + ")" : "";
+                    if (!result.ranked) shown = " (first " + result.hits.size() + ", add words to rank)";
+                    lblSearchStatus.setText(result.totalMatches + " match" + (result.totalMatches == 1 ? "" : "es") + shown + ", " + elapsedMillis + " ms");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    cause.printStackTrace();
+                    searchHits.clear();
+                    lblSearchStatus.setText("Search failed");
                 }
-
-                // Separator
-                doc.add(new Paragraph("\n"));
-                doc.add(new LineSeparator());
-            }
-
-            doc.close();
-            JOptionPane.showMessageDialog(this, "PDF Generated Successfully: " + fileName);
-
-            if (Desktop.isDesktopSupported()) {
-                Desktop.getDesktop().open(new File(fileName));
+                scrSearchHits.setVisible(true);
+                revalidate();
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error generating PDF: " + e.getMessage());
-        }
+        }.execute();
     }
 
-    private void addSectionHeader(Document doc, String text) throws DocumentException {
-        Paragraph p = new Paragraph(text, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12));
-        p.setSpacingAfter(10f);
-        doc.add(p);
+    // Selects and scrolls to the experiment's table row, if the current filter shows it
+    private void selectExperimentRow(int id) {
+        int row = tableModel.positionOf(id);
+        if (row < 0) return;
+        int viewRow = table.convertRowIndexToView(row);
+        table.getSelectionModel().setSelectionInterval(viewRow, viewRow);
+        table.scrollRectToVisible(table.getCellRect(viewRow, 0, true));
     }
 
-    // --- TITLE PAGE (LATEX MATCHING) ---
-    private void addTitlePage(Document doc) throws DocumentException {
-        // Outer border table
-        PdfPTable borderTable = new PdfPTable(1);
-        borderTable.setWidthPercentage(100);
-        // Simulating tcolorbox frame
-        borderTable.getDefaultCell().setBorder(Rectangle.BOX);
-        borderTable.getDefaultCell().setBorderWidth(2f);
-        borderTable.getDefaultCell().setPadding(20f);
-        borderTable.getDefaultCell().setMinimumHeight(doc.getPageSize().getHeight() - 120);
-
-        PdfPTable content = new PdfPTable(1);
-        content.setWidthPercentage(100);
-
-        Font fontLg = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
-        Font fontMd = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 20);
-        Font fontReg = FontFactory.getFont(FontFactory.HELVETICA, 12);
-        Font fontSm = FontFactory.getFont(FontFactory.HELVETICA, 10);
-
-        addCenterText(content, "COLLEGE OF ENGINEERING", fontLg, 5);
-        addCenterText(content, "THIRUVANANTHAPURAM", fontLg, 20);
-        addCenterText(content, "DEPARTMENT OF", fontMd, 5);
-        addCenterText(content, "ELECTRICAL ENGINEERING", fontMd, 30);
-        addCenterText(content, "LABORATORY RECORD", fontLg, 5);
-        addCenterText(content, "for", fontReg, 5);
-        addCenterText(content, "PCEOL408 OBJECT ORIENTED PROGRAMMING LAB", fontLg, 30);
-
-        // LOGO
-        if (logoPath != null && !logoPath.isEmpty()) {
-            try {
-                Image img = Image.getInstance(logoPath);
-                img.scaleToFit(100, 100);
-                img.setAlignment(Element.ALIGN_CENTER);
-                PdfPCell imgCell = new PdfPCell(img);
-                imgCell.setBorder(0);
-                imgCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                imgCell.setPaddingBottom(20f);
-                content.addCell(imgCell);
-            } catch (Exception e) {
-                // Ignore missing logo
-            }
-        }
-
-        PdfPTable infoTable = new PdfPTable(new float[]{1f, 3f});
-        infoTable.setWidthPercentage(80);
-        infoTable.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-        addInfoRow(infoTable, "Name:", tfName.getText(), fontReg);
-        addInfoRow(infoTable, "Reg No:", tfRegNo.getText(), fontReg);
-        addInfoRow(infoTable, "Semester:", "Fourth Semester B.Tech (ECE)", fontReg);
-        addInfoRow(infoTable, "Year:", tfYear.getText(), fontReg);
-
-        PdfPCell infoContainer = new PdfPCell(infoTable);
-        infoContainer.setBorder(0);
-        infoContainer.setPaddingBottom(30f);
-        content.addCell(infoContainer);
-
-        Paragraph certPara = new Paragraph("Certified that this is the bona fide record of work done by ______________________ in the Object Oriented Programming Lab during the academic year ______________ .", fontSm);
-        certPara.setAlignment(Element.ALIGN_CENTER);
-        certPara.setLeading(30f);
-
-        PdfPCell certCell = new PdfPCell();
-        certCell.setBorder(0);
-        certCell.setPaddingBottom(40f);
-        certCell.addElement(certPara);
-        content.addCell(certCell);
-
-        PdfPTable signTable = new PdfPTable(2);
-        signTable.setWidthPercentage(100);
-
-        PdfPCell signLeft = new PdfPCell(new Paragraph("Examiners", fontReg));
-        signLeft.setBorder(0);
-        signLeft.setHorizontalAlignment(Element.ALIGN_LEFT);
-
-        PdfPCell signRight = new PdfPCell(new Paragraph("Faculty in charge", fontReg));
-        signRight.setBorder(0);
-        signRight.setHorizontalAlignment(Element.ALIGN_RIGHT);
-
-        signTable.addCell(signLeft);
-        signTable.addCell(signRight);
-
-        PdfPCell dateLeft = new PdfPCell(new Paragraph("\n\nThiruvananthapuram\nDate: ____________", fontSm));
-        dateLeft.setBorder(0);
-        dateLeft.setHorizontalAlignment(Element.ALIGN_LEFT);
-
-        PdfPCell dateRight = new PdfPCell(new Paragraph("", fontSm));
-        dateRight.setBorder(0);
-
-        signTable.addCell(dateLeft);
-        signTable.addCell(dateRight);
-
-        PdfPCell signContainer = new PdfPCell(signTable);
-        signContainer.setBorder(0);
-        content.addCell(signContainer);
-
-        PdfPCell containerCell = new PdfPCell(content);
-        containerCell.setBorder(0);
-        borderTable.addCell(containerCell);
-
-        doc.add(borderTable);
+    // Matched words (between the SearchIndex markers) in bold, everything else escaped
+    private static String snippetHtml(String snippet) {
+        if (snippet == null) return "";
+        return escapeHtml(snippet).replace(SearchIndex.MATCH_OPEN, "<b>").replace(SearchIndex.MATCH_CLOSE, "</b>");
     }
 
-    private void addCenterText(PdfPTable table, String text, Font font, float spaceAfter) {
-        PdfPCell cell = new PdfPCell(new Paragraph(text, font));
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        cell.setBorder(0);
-        cell.setPaddingBottom(spaceAfter);
-        table.addCell(cell);
+    private static String escapeHtml(String text) {
+        if (text == null) return "";
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replaceAll("\\s+", " ");
     }
 
-    private void addInfoRow(PdfPTable table, String label, String value, Font font) {
-        PdfPCell c1 = new PdfPCell(new Phrase(label, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12)));
-        c1.setBorder(0);
-        c1.setPaddingBottom(8f);
-
-        PdfPCell c2 = new PdfPCell(new Phrase(value, font));
-        c2.setBorder(0);
-        c2.setPaddingBottom(8f);
-
-        table.addCell(c1);
-        table.addCell(c2);
+    // ==========================================
+    // REPOSITORY WATCH MODE
+    // ==========================================
+    private void setWatching(boolean enabled) {
+        if (!enabled) {
+            if (repoWatcher != null) {
+                try { repoWatcher.close(); } catch (IOException e) { e.printStackTrace(); }
+                repoWatcher = null;
+            }
+            chkWatchRepos.setText("Watch Imported Repos");
+            return;
+        }
+        try {
+            repoWatcher = new RepositoryWatcher(this::onRepositoryChanged, RepositoryWatcher.DEFAULT_QUIET_MILLIS, prunedDirs);
+            watchIfEnabled(experimentDao.importedRepoPaths());
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+            chkWatchRepos.setSelected(false);
+            JOptionPane.showMessageDialog(this, "Could not start watching repositories: " + e.getMessage(), "Watch Error", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
-    // --- TABLE HEADERS ---
-    private void addHeaderCell(PdfPTable table, String text) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11)));
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-        cell.setGrayFill(0.9f);
-        cell.setPadding(6);
-        table.addCell(cell);
+    // Safe from any thread; repositories that no longer exist on disk are skipped
+    private void watchIfEnabled(List<String> repoPaths) {
+        RepositoryWatcher watcher = repoWatcher;
+        if (watcher == null) return;
+        for (String path : repoPaths) {
+            File dir = new File(path);
+            if (!dir.isDirectory()) continue;
+            try { watcher.watch(dir); }
+            catch (IOException e) { System.err.println("Could not watch " + dir + ": " + e.getMessage()); }
+        }
+        int count = watcher.watchedRepositories();
+        SwingUtilities.invokeLater(() -> chkWatchRepos.setText("Watching " + count + " Repos"));
     }
 
-    private void addCell(PdfPTable table, String text, int alignment) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, FontFactory.getFont(FontFactory.HELVETICA, 10)));
-        cell.setPadding(5);
-        cell.setHorizontalAlignment(alignment);
-        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-        table.addCell(cell);
+    // Runs on the watcher thread once a repository has been quiet for a moment
+    private void onRepositoryChanged(File repoDir) {
+        if (!RepositoryImporter.looksLikeRepository(repoDir)) return; // deleted or moved away
+        Experiment exp = RepositoryImporter.parse(repoDir, "0", prunedDirs, new PhaseMetrics("import")); // number is kept from the existing row
+        try {
+            if (experimentDao.upsertImported(List.of(exp)) == 0) return;
+            int id = experimentDao.idForRepoPath(exp.repoPath);
+            String time = new SimpleDateFormat("HH:mm:ss").format(new Date());
+            SwingUtilities.invokeLater(() -> {
+                tableModel.experimentUpdated(id);
+                chkWatchRepos.setToolTipText("Last re-import: '" + exp.name + "' at " + time);
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
-    // --- HIGHLIGHTED CODE (MATCHING LATEX LISTINGS) ---
-    private void addHighlightedCodeBlock(Document doc, String code) throws DocumentException {
-        if (code != null) code = code.replace("\u00A0", " ").replace("\t", "    ");
+    // ==========================================
+    // PDF GENERATION (Aesthetic Upgrade)
+    // ==========================================
+    private void generatePdfFile() {
+        if (tfName.getText().isEmpty() || tfRegNo.getText().isEmpty() || experimentCount() == 0) {
+            JOptionPane.showMessageDialog(this, "Please fill student details and add at least one experiment.");
+            return;
+        }
 
-        PdfPTable table = new PdfPTable(1);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(5f);
+        saveSettings();
+        StudentInfo student = new StudentInfo(tfName.getText(), tfRegNo.getText(), tfYear.getText(), logoPath);
 
-        Paragraph p = new Paragraph();
-        Font fontBase = FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, Color.BLACK);
-        p.setFont(fontBase);
+        File outputDir = outputDirectory();
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            JOptionPane.showMessageDialog(this, "Cannot create output folder: " + outputDir);
+            return;
+        }
+        File pdfFile = new File(outputDir, student.pdfFileName());
 
-        Matcher matcher = JAVA_PATTERN.matcher(code != null ? code : "");
-        int lastEnd = 0;
+        // Unchanged experiments are copied from the fragment cache instead of being laid out again
+        FragmentCache fragmentCache = FragmentCache.openDefault();
 
-        while (matcher.find()) {
-            if (matcher.start() > lastEnd) {
-                p.add(new Chunk(code.substring(lastEnd, matcher.start()), fontBase));
+        // DB load, image decoding and layout all run on the worker; the EDT only sees progress updates
+        generationWorker = new SwingWorker<RecordRenderer.RenderStats, int[]>() {
+            @Override
+            protected RecordRenderer.RenderStats doInBackground() throws Exception {
+                RecordRenderer.RenderStats stats;
+                try (ExperimentSource source = experimentDao.openSource();
+                     AtomicFileOutput out = new AtomicFileOutput(pdfFile)) {
+                    stats = new RecordRenderer(fragmentCache, ImagePipeline.shared(), RecordRenderer.DEFAULT_PARALLELISM).render(out, student, source, new RecordRenderer.ProgressListener() {
+                        @Override
+                        public void experimentRendered(int done, int total, Experiment exp) { publish(new int[] {done, total}); }
+
+                        @Override
+                        public boolean isCancelled() { return generationWorker.isCancelled(); }
+                    });
+                    out.commit(); // a failed or cancelled render leaves the previous PDF (if any) untouched
+                } finally {
+                    // done() fires as soon as cancel() is called; only re-enable once the file is released
+                    if (isCancelled()) SwingUtilities.invokeLater(() -> setGenerating(false));
+                }
+                try {
+                    stats.metrics.writeJson(pdfFile);
+                } catch (IOException e) {
+                    System.err.println("Could not write generation metrics: " + e.getMessage());
+                }
+                return stats;
             }
 
-            String match = matcher.group();
-            Chunk chunk;
-
-            if (match.startsWith("//") || match.startsWith("/*")) {
-                chunk = new Chunk(match, FontFactory.getFont(FontFactory.COURIER, 10, Font.ITALIC, COL_COMMENT));
-            } else if (match.startsWith("\"")) {
-                chunk = new Chunk(match, FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, COL_STRING));
-            } else {
-                chunk = new Chunk(match, FontFactory.getFont(FontFactory.COURIER, 10, Font.BOLD, COL_KEYWORD));
+            @Override
+            protected void process(List<int[]> chunks) {
+                // each chunk is one {done, total} update; only the latest matters
+                int[] latest = chunks.get(chunks.size() - 1);
+                int done = latest[0], total = latest[1];
+                progressBar.setMaximum(Math.max(total, 1));
+                progressBar.setValue(done);
+                progressBar.setString("Experiment " + done + " / " + total);
             }
-            p.add(chunk);
-            lastEnd = matcher.end();
-        }
-
-        if (code != null && lastEnd < code.length()) {
-            p.add(new Chunk(code.substring(lastEnd), fontBase));
-        }
-
-        PdfPCell cell = new PdfPCell(p);
-        cell.setBackgroundColor(COL_CODE_BG);
-        cell.setPadding(10f);
-        cell.setBorderColor(Color.GRAY);
-        cell.setBorderWidth(1f);
 
-        table.addCell(cell);
-        doc.add(table);
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                setGenerating(false);
+                try {
+                    RecordRenderer.RenderStats stats = get();
+                    JOptionPane.showMessageDialog(LabRecordGenerator.this, "PDF Generated Successfully: " + pdfFile
+                            + "\n(" + fragmentCache.statsLine() + "; " + stats.imageSummary() + ")"
+                            + "\n\nTime: " + stats.metrics.summary()
+                            + "\nMetrics: " + PhaseMetrics.jsonFileFor(pdfFile).getName());
+
+                    if (Desktop.isDesktopSupported()) {
+                        Desktop.getDesktop().open(pdfFile);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    cause.printStackTrace();
+                    JOptionPane.showMessageDialog(LabRecordGenerator.this, "Error generating PDF: " + cause.getMessage());
+                }
+            }
+        };
+        setGenerating(true);
+        generationWorker.execute();
     }
 
-    // --- OUTPUT BLOCK (MATCHING LATEX TCOLORBOX) ---
-    private void addOutputBlock(Document doc, String output) throws DocumentException {
-        if (output != null) output = output.replace("\u00A0", " ").replace("\t", "    ");
-
-        PdfPTable table = new PdfPTable(1);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(5f);
-
-        Font outFont = FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, Color.BLACK);
-
-        PdfPCell cell = new PdfPCell(new Phrase(output != null ? output : "", outFont));
-        cell.setBackgroundColor(COL_OUTPUT_BG);
-        cell.setPadding(10f);
-        cell.setBorderColor(Color.GRAY);
-        cell.setBorderWidth(1f);
-
-        table.addCell(cell);
-        doc.add(table);
+    private File outputDirectory() {
+        String dir = tfOutputDir.getText().trim();
+        return dir.isEmpty() ? AppPaths.defaultOutputDir() : new File(dir);
     }
 
-    // --- PAGE NUMBERS ---
-    class HeaderFooterPageEvent extends PdfPageEventHelper {
-        String header;
-        Font font = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 9);
-
-        public HeaderFooterPageEvent(String header) { this.header = header; }
-
-        public void onEndPage(PdfWriter writer, Document document) {
-            if(writer.getPageNumber() == 1) return;
-            PdfContentByte cb = writer.getDirectContent();
-            ColumnText.showTextAligned(cb, Element.ALIGN_LEFT, new Phrase(header, font),
-                    document.left(), document.top() + 10, 0);
-            ColumnText.showTextAligned(cb, Element.ALIGN_RIGHT, new Phrase("Page " + writer.getPageNumber(), font),
-                    document.right(), document.bottom() - 10, 0);
+    private void setGenerating(boolean generating) {
+        btnGenerate.setEnabled(!generating);
+        progressBar.setVisible(generating);
+        btnCancelGenerate.setVisible(generating);
+        if (generating) {
+            progressBar.setValue(0);
+            progressBar.setString("Loading experiments...");
         }
+        getContentPane().revalidate();
     }
 
     // ==========================================
     // MAIN METHOD
     // ==========================================
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            RenderServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--storage-report")) {
+            try (Database db = Database.openWorkspace()) {
+                if (db.movedIntoBlobStore() > 0) System.out.println("Moved " + db.movedIntoBlobStore() + " experiment(s) into the blob store");
+                System.out.println(db.storageReport().summary());
+            } catch (SQLException e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); } catch (Exception ignored) {}
             new LabRecordGenerator().setVisible(true);
@@ -0,0 +1,170 @@
+package org.example;
+
+import java.io.IOException;
+
+/**
+ * Program input and output as stored and printed: held to a line budget, and cleaned the way
+ * every text field is (non-breaking spaces to spaces, tabs to four spaces) in the same pass.
+ * <p>
+ * Autograding files and pasted console logs can carry megabytes of loop output. A budget keeps
+ * the first {@code headLines} and the last {@code tailLines} lines with a marker counting the
+ * lines in between, and cuts single lines longer than {@link #MAX_LINE_CHARS}. Text is pushed
+ * through a {@link Sink} as it is read (see {@link JsonReader#nextString(Appendable)}), so only
+ * what is kept is ever held: the head as it arrives and the tail in a ring of reused line
+ * buffers. Bounded text fits its own budget, so bounding it again on render changes nothing.
+ */
+final class OutputText {
+
+    static final int MAX_LINE_CHARS = 2000;
+    static final OutputText DEFAULT = new OutputText(300, 100);
+
+    private static final char NBSP = 0xA0;
+    // A cut line keeps this much less than the limit, leaving room for its "(N more characters)" note
+    private static final int NOTE_CHARS = 64;
+
+    final int headLines, tailLines;
+
+    // About three quarters of maxLines from the start, the rest from the end
+    OutputText(int maxLines) {
+        this(maxLines - maxLines / 4, maxLines / 4);
+    }
+
+    OutputText(int headLines, int tailLines) {
+        if (headLines < 0 || tailLines < 0 || headLines + tailLines < 1) {
+            throw new IllegalArgumentException("Need headLines, tailLines >= 0 and at least one line in total");
+        }
+        this.headLines = headLines;
+        this.tailLines = tailLines;
+    }
+
+    // Part of the fragment cache key: sections laid out under another budget look different
+    String signature() {
+        return headLines + "+" + tailLines;
+    }
+
+    /** {@code text} cleaned and held to the budget; null stays null. */
+    String bound(CharSequence text) {
+        if (text == null) return null;
+        Sink sink = new Sink();
+        sink.append(text);
+        return sink.result();
+    }
+
+    // The next JSON value as bounded text, like JsonReader.nextText(); strings are cut while they are decoded
+    String read(JsonReader json) throws IOException {
+        if (json.peek() != JsonReader.Token.STRING) return bound(json.nextText());
+        Sink sink = new Sink();
+        json.nextString(sink);
+        return sink.result();
+    }
+
+    /** Non-breaking spaces to spaces and tabs to four spaces in one pass; returns {@code text} itself when already clean. */
+    static String sanitize(String text) {
+        if (text == null) return null;
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != NBSP && c != '\t') {
+                if (sb != null) sb.append(c);
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder(text.length() + 16).append(text, 0, i);
+            sb.append(c == NBSP ? " " : "    ");
+        }
+        return sb != null ? sb.toString() : text;
+    }
+
+    // ==========================================
+    // SINK
+    // ==========================================
+    // --- Takes the text in pieces: fills the head, then keeps the latest lines in a ring and counts the rest ---
+    final class Sink implements Appendable {
+        private final StringBuilder head = new StringBuilder();
+        // One spare slot: eliding a single line would only swap it for the marker
+        private final StringBuilder[] ring = new StringBuilder[tailLines + 1];
+        private int headCount, ringStart, ringSize;
+        private long pushedOut;
+        private StringBuilder line = headLines > 0 ? head : new StringBuilder(); // where the current line goes
+        private int lineChars;
+        private long cutChars;
+        private String result;
+
+        private Sink() {}
+
+        @Override
+        public Sink append(char c) {
+            switch (c) {
+                case '\n': endLine(true); break;
+                case NBSP: put(' '); break;
+                case '\t': put(' '); put(' '); put(' '); put(' '); break;
+                default: put(c);
+            }
+            return this;
+        }
+
+        @Override
+        public Sink append(CharSequence text) {
+            if (text == null) text = "null";
+            return append(text, 0, text.length());
+        }
+
+        @Override
+        public Sink append(CharSequence text, int start, int end) {
+            if (text == null) text = "null";
+            for (int i = start; i < end; i++) append(text.charAt(i));
+            return this;
+        }
+
+        private void put(char c) {
+            if (cutChars > 0) {
+                cutChars++;
+            } else if (lineChars == MAX_LINE_CHARS) {
+                int keep = MAX_LINE_CHARS - NOTE_CHARS;
+                line.setLength(line.length() - (lineChars - keep));
+                cutChars = lineChars - keep + 1;
+                lineChars = keep;
+            } else {
+                line.append(c);
+                lineChars++;
+            }
+        }
+
+        private void endLine(boolean newline) {
+            if (cutChars > 0) line.append(" ... (").append(String.format("%,d", cutChars)).append(" more characters)");
+            if (newline) line.append('\n');
+            lineChars = 0;
+            cutChars = 0;
+
+            if (line == head) {
+                if (++headCount == headLines) line = new StringBuilder();
+                return;
+            }
+            StringBuilder free = null;
+            if (ringSize == ring.length) { // the oldest kept line falls out and its buffer is reused
+                free = ring[ringStart];
+                ringStart = (ringStart + 1) % ring.length;
+                pushedOut++;
+            } else {
+                ringSize++;
+            }
+            ring[(ringStart + ringSize - 1) % ring.length] = line;
+            line = free != null ? free : new StringBuilder();
+            line.setLength(0);
+        }
+
+        /** The kept text; the sink takes no more input afterwards. */
+        String result() {
+            if (result != null) return result;
+            if (lineChars > 0 || cutChars > 0) endLine(false); // a last line without a line break
+            StringBuilder out = head;
+            int first = 0;
+            if (pushedOut > 0) { // the marker takes the spare slot
+                out.append("... ").append(String.format("%,d", pushedOut + 1)).append(" lines omitted ...");
+                if (ringSize > 1) out.append('\n');
+                first = 1;
+            }
+            for (int i = first; i < ringSize; i++) out.append(ring[(ringStart + i) % ring.length]);
+            return result = out.toString();
+        }
+    }
+}
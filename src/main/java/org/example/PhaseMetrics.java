@@ -0,0 +1,345 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Where the time of one record generation or repository import went.
+ * <p>
+ * Work is run through {@link #time}, which opens a {@link Span} per phase occurrence. Spans
+ * nest, and each phase is charged only its own time: image decoding inside a section is
+ * counted as {@link Phase#IMAGES}, not as layout too, so the phase totals add up to the
+ * wall time minus whatever ran outside any span ("other"). Every experiment also gets an
+ * {@link ExperimentSpan} tagged with its code/output size and embedded image bytes.
+ * <p>
+ * Each span is also a JFR event ({@code org.example.Phase}, {@code org.example.Experiment}),
+ * so a recording started with {@code -XX:StartFlightRecording} shows the same breakdown on
+ * a timeline next to GC and I/O. With no recording running the events are never committed.
+ * <p>
+ * One instance per operation, used from the thread that runs it. Work done on other threads
+ * (sections rendered in parallel) is recorded in its own instance and {@link #merge merged}
+ * in; phase totals then add up time across threads and may exceed the wall time.
+ */
+final class PhaseMetrics {
+
+    // --- Phases; the key is the JSON field and JFR label ---
+    enum Phase {
+        DATABASE("database"),
+        IMAGES("images"),
+        HIGHLIGHT("highlight"),
+        LAYOUT("layout"),
+        FRAGMENT_CACHE("fragmentCache"),
+        CLOSE("close"),
+        README("readme"),
+        AUTOGRADING("autograding"),
+        SOURCE_SEARCH("sourceSearch"),
+        SOURCE_READ("sourceRead");
+
+        final String key;
+
+        Phase(String key) { this.key = key; }
+    }
+
+    // ==========================================
+    // JFR EVENTS
+    // ==========================================
+    @Name("org.example.Phase")
+    @Label("Lab Record Phase")
+    @Category("Lab Record")
+    @Description("One phase of a record generation or repository import, excluding nested phases")
+    static final class PhaseEvent extends Event {
+        @Label("Operation") String operation;
+        @Label("Phase") String phase;
+        @Label("Experiment") String experiment;
+    }
+
+    @Name("org.example.Experiment")
+    @Label("Lab Record Experiment")
+    @Category("Lab Record")
+    @Description("Everything done for one experiment section")
+    static final class ExperimentEvent extends Event {
+        @Label("Operation") String operation;
+        @Label("Number") String number;
+        @Label("Title") String title;
+        @Label("Code Characters") int codeChars;
+        @Label("Output Characters") int outputChars;
+        @Label("Image Bytes") @DataAmount long imageBytes;
+        @Label("From Fragment Cache") boolean cached;
+    }
+
+    // ==========================================
+    // SPANS
+    // ==========================================
+    // --- One phase occurrence; close() charges its own time (children excluded) to the phase ---
+    final class Span implements AutoCloseable {
+        private final Phase phase;
+        private final Span parent;
+        private final long start = System.nanoTime();
+        private final PhaseEvent event = new PhaseEvent();
+        private long childNanos;
+
+        private Span(Phase phase, Span parent) {
+            this.phase = phase;
+            this.parent = parent;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - start;
+            phaseNanos[phase.ordinal()] += elapsed - childNanos;
+            if (parent != null) parent.childNanos += elapsed;
+            current = parent;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.phase = phase.key;
+                event.experiment = experiment != null ? experiment.number : "";
+                event.commit();
+            }
+        }
+    }
+
+    // --- Everything done for one experiment; phases opened meanwhile are attributed to it ---
+    final class ExperimentSpan implements AutoCloseable {
+        final String number, title;
+        final int codeChars, outputChars;
+        long imageBytes;
+        boolean cached;
+        private final long start = System.nanoTime();
+        private final ExperimentEvent event = new ExperimentEvent();
+        private long nanos;
+
+        private ExperimentSpan(Experiment exp, boolean cached) {
+            this.number = exp.no;
+            this.title = exp.name;
+            this.codeChars = exp.code != null ? exp.code.length() : 0;
+            this.outputChars = exp.output != null ? exp.output.length() : 0;
+            this.cached = cached;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            nanos = System.nanoTime() - start;
+            experiment = null;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.number = number; event.title = title;
+                event.codeChars = codeChars; event.outputChars = outputChars;
+                event.imageBytes = imageBytes; event.cached = cached;
+                event.commit();
+            }
+        }
+    }
+
+    final String operation;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final List<ExperimentSpan> experiments = new ArrayList<>();
+    private Span current;
+    private ExperimentSpan experiment;
+    private long totalNanos = -1;
+    private int images;
+    private long imageBytesOriginal, imageBytesEmbedded;
+
+    PhaseMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    // --- A block of work timed as one phase occurrence ---
+    @FunctionalInterface
+    interface Timed<T, X extends Exception> {
+        T call() throws X;
+    }
+
+    @FunctionalInterface
+    interface TimedAction<X extends Exception> {
+        void run() throws X;
+    }
+
+    /** Runs {@code body} as one occurrence of {@code phase} and returns its result. */
+    <T, X extends Exception> T time(Phase phase, Timed<T, X> body) throws X {
+        Span span = phase(phase);
+        try {
+            return body.call();
+        } finally {
+            span.close();
+        }
+    }
+
+    /** Runs {@code body} as one occurrence of {@code phase}. */
+    <X extends Exception> void time(Phase phase, TimedAction<X> body) throws X {
+        Span span = phase(phase);
+        try {
+            body.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    private Span phase(Phase phase) {
+        current = new Span(phase, current);
+        return current;
+    }
+
+    ExperimentSpan experiment(Experiment exp, boolean cached) {
+        experiment = new ExperimentSpan(exp, cached);
+        experiments.add(experiment);
+        return experiment;
+    }
+
+    // Folds in an instance filled on a worker thread for this operation
+    void merge(PhaseMetrics worker) {
+        for (int i = 0; i < phaseNanos.length; i++) phaseNanos[i] += worker.phaseNanos[i];
+        experiments.addAll(worker.experiments);
+        images += worker.images;
+        imageBytesOriginal += worker.imageBytesOriginal;
+        imageBytesEmbedded += worker.imageBytesEmbedded;
+    }
+
+    // Counts an image placed in the record (source file size, bytes embedded) and credits the
+    // embedded bytes to the experiment being laid out, if any
+    void imageEmbedded(long originalBytes, long embeddedBytes) {
+        imagesEmbedded(1, originalBytes, embeddedBytes);
+    }
+
+    // The same for several images at once: those inside a section reused from the fragment cache
+    void imagesEmbedded(int count, long originalBytes, long embeddedBytes) {
+        images += count;
+        imageBytesOriginal += originalBytes;
+        imageBytesEmbedded += embeddedBytes;
+        if (experiment != null) experiment.imageBytes += embeddedBytes;
+    }
+
+    int images() { return images; }
+    long imageBytesOriginal() { return imageBytesOriginal; }
+    long imageBytesEmbedded() { return imageBytesEmbedded; }
+
+    // Marks the operation finished; later spans no longer count towards the total
+    void finish() {
+        if (totalNanos < 0) totalNanos = System.nanoTime() - startNanos;
+    }
+
+    long totalNanos() {
+        return totalNanos >= 0 ? totalNanos : System.nanoTime() - startNanos;
+    }
+
+    long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    // ==========================================
+    // REPORTS
+    // ==========================================
+    /** One line for dialogs and the batch report, e.g. {@code 1.84 s: database 0.12 s, layout 0.85 s, ...}. */
+    String summary() {
+        long total = totalNanos();
+        StringBuilder sb = new StringBuilder(seconds(total)).append(':');
+        long accounted = 0;
+        for (Phase p : Phase.values()) {
+            long n = phaseNanos[p.ordinal()];
+            if (n == 0) continue;
+            accounted += n;
+            sb.append(' ').append(p.key).append(' ').append(seconds(n)).append(',');
+        }
+        sb.append(" other ").append(seconds(Math.max(0, total - accounted)));
+
+        ExperimentSpan slowest = null;
+        for (ExperimentSpan e : experiments) {
+            if (slowest == null || e.nanos > slowest.nanos) slowest = e;
+        }
+        if (slowest != null && experiments.size() > 1) {
+            sb.append("; slowest experiment ").append(slowest.number).append(" (").append(seconds(slowest.nanos)).append(')');
+        }
+        return sb.toString();
+    }
+
+    /** Machine-readable form of the same numbers (milliseconds), for tracking runs over time. */
+    String toJson(String file) {
+        long total = totalNanos();
+        StringBuilder sb = new StringBuilder(256 + experiments.size() * 160);
+        sb.append("{\n");
+        sb.append("  \"operation\": ").append(quote(operation)).append(",\n");
+        if (file != null) sb.append("  \"file\": ").append(quote(file)).append(",\n");
+        sb.append("  \"startedAt\": ").append(quote(startedAt.toString())).append(",\n");
+        sb.append("  \"totalMillis\": ").append(millis(total)).append(",\n");
+        sb.append("  \"phases\": {");
+        long accounted = 0;
+        for (Phase p : Phase.values()) {
+            long n = phaseNanos[p.ordinal()];
+            if (n == 0) continue;
+            accounted += n;
+            sb.append("\n    ").append(quote(p.key)).append(": ").append(millis(n)).append(',');
+        }
+        sb.append("\n    \"other\": ").append(millis(Math.max(0, total - accounted))).append("\n  },\n");
+        sb.append("  \"experiments\": [");
+        for (int i = 0; i < experiments.size(); i++) {
+            ExperimentSpan e = experiments.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"number\": ").append(quote(e.number)).append(", \"title\": ").append(quote(e.title))
+                    .append(", \"millis\": ").append(millis(e.nanos)).append(", \"codeChars\": ").append(e.codeChars)
+                    .append(", \"outputChars\": ").append(e.outputChars).append(", \"imageBytes\": ").append(e.imageBytes)
+                    .append(", \"cached\": ").append(e.cached).append('}');
+        }
+        sb.append(experiments.isEmpty() ? "]\n" : "\n  ]\n");
+        return sb.append("}\n").toString();
+    }
+
+    // Record.pdf -> Record.metrics.json, next to it
+    static File jsonFileFor(File pdf) {
+        String name = pdf.getName();
+        String base = name.toLowerCase(Locale.ROOT).endsWith(".pdf") ? name.substring(0, name.length() - 4) : name;
+        return new File(pdf.getAbsoluteFile().getParentFile(), base + ".metrics.json");
+    }
+
+    void writeJson(File pdf) throws IOException {
+        try (AtomicFileOutput out = new AtomicFileOutput(jsonFileFor(pdf))) {
+            out.write(toJson(pdf.getName()).getBytes(StandardCharsets.UTF_8));
+            out.commit();
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
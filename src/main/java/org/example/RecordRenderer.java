@@ -0,0 +1,712 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// OpenPDF Imports
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfDestination;
+import com.lowagie.text.pdf.PdfImportedPage;
+import com.lowagie.text.pdf.PdfOutline;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.draw.LineSeparator;
+
+/**
+ * Lays out a complete lab record (title page, index and one section per experiment).
+ * Holds no Swing state, so the GUI and the headless batch mode share the same output.
+ * <p>
+ * With a parallelism above 1, sections are laid out as standalone fragments on a worker
+ * pool while the calling thread lays out the title page and index and appends finished
+ * sections in order. The running header and page number are drawn as each page is appended,
+ * so numbering is continuous and the pages match the sequential output.
+ * <p>
+ * The index is laid out before any section, yet lists each section's first page: every
+ * page number is an empty template filled in when its section starts (templates are only
+ * written out at {@code doc.close()}), so one layout pass is enough. Each section also gets
+ * an outline entry and is linked from its index title.
+ */
+class RecordRenderer {
+
+    // Bump whenever section layout changes so cached fragments from older builds are not reused
+    static final String LAYOUT_SIGNATURE = "section-v2";
+    static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final float LOGO_SIZE = 100;
+    private static final float PAGE_NUMBER_WIDTH = 30;
+
+    private final StylePalette styles;
+    private final FragmentCache cache;
+    private final ImagePipeline images;
+    private final int parallelism;
+    private final CodeListing listing;
+    private final OutputText outputs;
+
+    RecordRenderer() {
+        this(StylePalette.DEFAULT, null, null);
+    }
+
+    RecordRenderer(FragmentCache cache, ImagePipeline images) {
+        this(StylePalette.DEFAULT, cache, images);
+    }
+
+    RecordRenderer(FragmentCache cache, ImagePipeline images, int parallelism) {
+        this(StylePalette.DEFAULT, cache, images, parallelism, CodeListing.DEFAULT, OutputText.DEFAULT);
+    }
+
+    RecordRenderer(FragmentCache cache, ImagePipeline images, int parallelism, CodeListing listing, OutputText outputs) {
+        this(StylePalette.DEFAULT, cache, images, parallelism, listing, outputs);
+    }
+
+    RecordRenderer(StylePalette styles, FragmentCache cache, ImagePipeline images) {
+        this(styles, cache, images, 1);
+    }
+
+    RecordRenderer(StylePalette styles, FragmentCache cache, ImagePipeline images, int parallelism) {
+        this(styles, cache, images, parallelism, CodeListing.DEFAULT, OutputText.DEFAULT);
+    }
+
+    // cache and images are optional: without them every section is laid out and images embedded as-is
+    RecordRenderer(StylePalette styles, FragmentCache cache, ImagePipeline images, int parallelism, CodeListing listing,
+                   OutputText outputs) {
+        this.styles = styles;
+        this.cache = cache;
+        this.images = images;
+        this.parallelism = Math.max(1, parallelism);
+        this.listing = listing;
+        this.outputs = outputs;
+    }
+
+    // --- What one render embedded, for the reports shown after generation ---
+    static class RenderStats {
+        int images;
+        long imageBytesOriginal, imageBytesEmbedded;
+        PhaseMetrics metrics;
+
+        String imageSummary() {
+            if (images == 0) return "no images";
+            return images + " image(s): " + (imageBytesOriginal / 1024) + " KB -> " + (imageBytesEmbedded / 1024)
+                    + " KB (saved " + ((imageBytesOriginal - imageBytesEmbedded) / 1024) + " KB)";
+        }
+    }
+
+    // --- Progress callback, polled once per experiment section ---
+    interface ProgressListener {
+        void experimentRendered(int done, int total, Experiment exp);
+
+        default boolean isCancelled() { return false; }
+    }
+
+    static final ProgressListener NO_PROGRESS = (done, total, exp) -> {};
+
+    // ==========================================
+    // PDF GENERATION (Aesthetic Upgrade)
+    // ==========================================
+    RenderStats render(OutputStream out, StudentInfo student, List<Experiment> experiments) throws DocumentException, IOException, SQLException {
+        return render(out, student, ExperimentSource.of(experiments), NO_PROGRESS);
+    }
+
+    /**
+     * Renders the record, reporting after every experiment. Throws {@link CancellationException}
+     * as soon as the listener reports cancellation; the caller owns (and cleans up) the stream.
+     */
+    RenderStats render(OutputStream out, StudentInfo student, ExperimentSource source, ProgressListener progress) throws DocumentException, IOException, SQLException {
+        PhaseMetrics metrics = new PhaseMetrics("generate");
+        List<Experiment> experiments = metrics.time(PhaseMetrics.Phase.DATABASE, () -> source.index());
+
+        Document doc = newDocument();
+
+        // Start decoding/downsampling every image in parallel; layout picks them up as it reaches them
+        if (images != null) {
+            if (student.logoPath != null && !student.logoPath.isEmpty()) {
+                images.prepareAsync(student.logoPath, LOGO_SIZE, LOGO_SIZE, true);
+            }
+            for (Experiment e : experiments) {
+                if (e.outputImagePath != null && !e.outputImagePath.trim().isEmpty()) {
+                    images.prepareAsync(e.outputImagePath, printableWidth(doc), printableHeight(doc), false);
+                }
+            }
+        }
+
+        PdfWriter writer = PdfWriter.getInstance(doc, out);
+        writer.setCloseStream(false); // the caller decides whether the output is published
+        writer.setViewerPreferences(PdfWriter.PageModeUseOutlines);
+
+        // Header: OOP (Java) Lab Record - Name
+        String headerText = "OOP (Java) Lab Record - " + student.name;
+        HeaderFooterPageEvent event = new HeaderFooterPageEvent(headerText, styles.pageHeader);
+        writer.setPageEvent(event);
+
+        PdfTemplate[] pageNumbers = metrics.time(PhaseMetrics.Phase.LAYOUT, () -> addFrontMatter(doc, writer, student, experiments, metrics));
+
+        // 3. EXPERIMENTS LOOP
+        // Bodies are pulled one at a time so only the current experiment's text is live
+        if (parallelism > 1 && experiments.size() > 1) {
+            appendSectionsInParallel(doc, writer, source, pageNumbers, progress, metrics);
+        } else {
+            int done = 0;
+            Experiment exp;
+            while ((exp = nextBody(source, metrics)) != null) {
+                if (progress.isCancelled()) throw new CancellationException("Generation cancelled");
+                markSection(doc, writer, pageNumbers, done, exp);
+                try (PhaseMetrics.ExperimentSpan span = metrics.experiment(exp, cache != null)) {
+                    if (cache != null) {
+                        byte[] fragment = sectionFragment(exp, span, metrics);
+                        metrics.time(PhaseMetrics.Phase.LAYOUT, () -> appendFragment(doc, writer, fragment));
+                    } else {
+                        addExperiment(doc, exp, metrics);
+                    }
+                }
+                progress.experimentRendered(++done, experiments.size(), exp);
+            }
+        }
+
+        // Flushes the last pages, fonts and cross-reference table to the stream
+        metrics.time(PhaseMetrics.Phase.CLOSE, () -> doc.close());
+
+        // Every image layout actually placed, whether or not it was started early
+        RenderStats stats = new RenderStats();
+        stats.metrics = metrics;
+        stats.images = metrics.images();
+        stats.imageBytesOriginal = metrics.imageBytesOriginal();
+        stats.imageBytesEmbedded = metrics.imageBytesEmbedded();
+        metrics.finish();
+        return stats;
+    }
+
+    // Title page and index; returns the index's page number cells, filled in as sections are placed
+    private PdfTemplate[] addFrontMatter(Document doc, PdfWriter writer, StudentInfo student, List<Experiment> experiments,
+                                         PhaseMetrics metrics) throws DocumentException {
+        PdfTemplate[] pageNumbers = new PdfTemplate[experiments.size()];
+        doc.open();
+
+        // 1. TITLE PAGE
+        addTitlePage(doc, student, metrics);
+
+        // 2. INDEX PAGE
+        doc.newPage();
+        Paragraph indexTitle = new Paragraph("INDEX", styles.indexTitle);
+        indexTitle.setAlignment(Element.ALIGN_CENTER);
+        doc.add(indexTitle);
+        doc.add(new Paragraph("\n"));
+
+        // Index Table
+        PdfPTable indexTable = new PdfPTable(new float[]{1, 5, 2.5f, 1.2f, 2});
+        indexTable.setWidthPercentage(100);
+        indexTable.setHeaderRows(1);
+
+        addHeaderCell(indexTable, "No.");
+        addHeaderCell(indexTable, "Experiment Name");
+        addHeaderCell(indexTable, "Date");
+        addHeaderCell(indexTable, "Page");
+        addHeaderCell(indexTable, "Sign");
+
+        for (int i = 0; i < experiments.size(); i++) {
+            Experiment exp = experiments.get(i);
+            addCell(indexTable, exp.no, Element.ALIGN_CENTER);
+            Chunk title = new Chunk(exp.name != null ? exp.name : "", styles.tableCell);
+            title.setLocalGoto(sectionAnchor(i));
+            addCell(indexTable, new Phrase(title), Element.ALIGN_LEFT);
+            addCell(indexTable, exp.date, Element.ALIGN_CENTER);
+            pageNumbers[i] = addPageNumberCell(indexTable, writer);
+            addCell(indexTable, "", Element.ALIGN_CENTER);
+        }
+        doc.add(indexTable);
+        return pageNumbers;
+    }
+
+    private static Experiment nextBody(ExperimentSource source, PhaseMetrics metrics) throws SQLException {
+        return metrics.time(PhaseMetrics.Phase.DATABASE, () -> source.nextBody());
+    }
+
+    // Everything about this renderer that shows in a record; batch jobs re-render when it changes
+    String signature() {
+        return sectionSignature();
+    }
+
+    private String sectionSignature() {
+        return LAYOUT_SIGNATURE + "/" + (images != null ? images.signature() : "raw") + "/" + listing.signature() + "/" + outputs.signature();
+    }
+
+    private static float printableWidth(Document doc) {
+        return doc.getPageSize().getWidth() - doc.leftMargin() - doc.rightMargin();
+    }
+
+    private static float printableHeight(Document doc) {
+        return doc.getPageSize().getHeight() - doc.topMargin() - doc.bottomMargin();
+    }
+
+    private Document newDocument() {
+        // Increased left and right margins to 70
+        return new Document(PageSize.A4, 70, 70, 50, 50);
+    }
+
+    // --- INDEX PAGE NUMBERS & OUTLINE ---
+    private static String sectionAnchor(int i) {
+        return "experiment-" + (i + 1);
+    }
+
+    // An empty box the size of a page number; markSection draws the number once it is known
+    private PdfTemplate addPageNumberCell(PdfPTable table, PdfWriter writer) throws DocumentException {
+        BaseFont bf = styles.tableCell.getCalculatedBaseFont(false);
+        float size = styles.tableCell.getSize();
+        float descent = bf.getFontDescriptor(BaseFont.DESCENT, size);
+        PdfTemplate placeholder = writer.getDirectContent().createTemplate(PAGE_NUMBER_WIDTH, bf.getFontDescriptor(BaseFont.ASCENT, size) - descent);
+        addCell(table, new Phrase(new Chunk(Image.getInstance(placeholder), 0, descent)), Element.ALIGN_CENTER);
+        return placeholder;
+    }
+
+    // Starts the section's first page, then points its index entry, link and outline item at it
+    private void markSection(Document doc, PdfWriter writer, PdfTemplate[] pageNumbers, int i, Experiment exp) {
+        doc.newPage(); // the section's own newPage() is then a no-op
+        if (i >= pageNumbers.length) return; // source returned more bodies than index rows
+        String page = String.valueOf(writer.getPageNumber());
+        BaseFont bf = styles.tableCell.getCalculatedBaseFont(false);
+        float size = styles.tableCell.getSize();
+        PdfTemplate placeholder = pageNumbers[i];
+        placeholder.beginText();
+        placeholder.setFontAndSize(bf, size);
+        placeholder.setTextMatrix((placeholder.getWidth() - bf.getWidthPoint(page, size)) / 2, -bf.getFontDescriptor(BaseFont.DESCENT, size));
+        placeholder.showText(page);
+        placeholder.endText();
+
+        float top = doc.getPageSize().getHeight();
+        writer.getDirectContent().localDestination(sectionAnchor(i), new PdfDestination(PdfDestination.FITH, top));
+        new PdfOutline(writer.getRootOutline(), new PdfDestination(PdfDestination.FITH, top), "Experiment " + exp.no + ": " + exp.name);
+    }
+
+    // --- CACHED SECTIONS ---
+    // A section always starts on a fresh page and never shares one, so it can be laid out in its
+    // own document and its pages copied in verbatim; the running header/page number are still
+    // drawn by the main document's page event.
+    byte[] renderSection(Experiment exp, PhaseMetrics metrics) throws DocumentException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(16 * 1024);
+        Document doc = newDocument();
+        PdfWriter.getInstance(doc, buf);
+        doc.open();
+        addExperiment(doc, exp, metrics);
+        metrics.time(PhaseMetrics.Phase.LAYOUT, () -> doc.close());
+        return buf.toByteArray();
+    }
+
+    // The section as a fragment: from the cache when there is one, laid out otherwise. A reused
+    // section's images were embedded when it was first laid out; they are credited again here.
+    private byte[] sectionFragment(Experiment exp, PhaseMetrics.ExperimentSpan span, PhaseMetrics metrics) throws DocumentException {
+        if (cache == null) return renderSection(exp, metrics);
+        FragmentCache.Fragment fragment = metrics.time(PhaseMetrics.Phase.FRAGMENT_CACHE, () -> cache.getOrRender(exp, sectionSignature(), e -> {
+            span.cached = false;
+            int images = metrics.images();
+            long original = metrics.imageBytesOriginal(), embedded = metrics.imageBytesEmbedded();
+            byte[] pdf = renderSection(e, metrics);
+            return new FragmentCache.Fragment(pdf, metrics.images() - images, metrics.imageBytesOriginal() - original,
+                    metrics.imageBytesEmbedded() - embedded);
+        }));
+        if (span.cached) metrics.imagesEmbedded(fragment.images, fragment.imageBytesOriginal, fragment.imageBytesEmbedded);
+        return fragment.pdf;
+    }
+
+    // --- PARALLEL SECTIONS ---
+    // One section rendered on a worker, with the metrics recorded on that thread
+    private static final class RenderedSection {
+        final Experiment exp;
+        final byte[] fragment;
+        final PhaseMetrics metrics;
+
+        RenderedSection(Experiment exp, byte[] fragment, PhaseMetrics metrics) {
+            this.exp = exp; this.fragment = fragment; this.metrics = metrics;
+        }
+    }
+
+    // Workers lay out sections while this thread appends them in order; at most two per worker wait in memory
+    private void appendSectionsInParallel(Document doc, PdfWriter writer, ExperimentSource source, PdfTemplate[] pageNumbers,
+                                          ProgressListener progress, PhaseMetrics metrics) throws DocumentException, IOException, SQLException {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "section-renderer");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Deque<Future<RenderedSection>> pending = new ArrayDeque<>();
+            boolean exhausted = false;
+            int done = 0;
+            while (true) {
+                while (!exhausted && pending.size() < parallelism * 2) {
+                    Experiment exp = nextBody(source, metrics);
+                    if (exp == null) exhausted = true;
+                    else pending.add(workers.submit(() -> renderSectionOnWorker(exp)));
+                }
+                if (pending.isEmpty()) break;
+                if (progress.isCancelled()) throw new CancellationException("Generation cancelled");
+
+                RenderedSection section = await(pending.poll());
+                metrics.merge(section.metrics);
+                int index = done;
+                metrics.time(PhaseMetrics.Phase.LAYOUT, () -> {
+                    markSection(doc, writer, pageNumbers, index, section.exp);
+                    appendFragment(doc, writer, section.fragment);
+                });
+                progress.experimentRendered(++done, pageNumbers.length, section.exp);
+            }
+        } finally {
+            workers.shutdownNow(); // drops queued sections after a failure or cancellation
+        }
+    }
+
+    private RenderedSection renderSectionOnWorker(Experiment exp) throws DocumentException {
+        PhaseMetrics local = new PhaseMetrics("generate");
+        byte[] fragment;
+        try (PhaseMetrics.ExperimentSpan span = local.experiment(exp, cache != null)) {
+            fragment = sectionFragment(exp, span, local);
+        }
+        return new RenderedSection(exp, fragment, local);
+    }
+
+    private static RenderedSection await(Future<RenderedSection> future) throws DocumentException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Generation interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DocumentException) throw (DocumentException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new DocumentException((Exception) cause);
+        }
+    }
+
+    private void appendFragment(Document doc, PdfWriter writer, byte[] fragment) throws IOException {
+        PdfReader reader = new PdfReader(fragment);
+        PdfContentByte cb = writer.getDirectContent();
+        for (int n = 1; n <= reader.getNumberOfPages(); n++) {
+            doc.newPage();
+            PdfImportedPage page = writer.getImportedPage(reader, n);
+            cb.addTemplate(page, 0, 0);
+        }
+        writer.freeReader(reader);
+    }
+
+    private void addExperiment(Document doc, Experiment exp, PhaseMetrics metrics) throws DocumentException {
+        metrics.time(PhaseMetrics.Phase.LAYOUT, () -> layoutExperiment(doc, exp, metrics));
+    }
+
+    // Everything but highlighting and image decoding (separate phases) is layout
+    private void layoutExperiment(Document doc, Experiment exp, PhaseMetrics metrics) throws DocumentException {
+        doc.newPage();
+
+        // Header style: Experiment 1: Name
+        Paragraph expTitle = new Paragraph("Experiment " + exp.no + ": " + exp.name, styles.experimentTitle);
+        expTitle.setSpacingAfter(8f);
+        doc.add(expTitle);
+
+        Paragraph datePara = new Paragraph("Date: " + exp.date, styles.experimentDate);
+        datePara.setSpacingAfter(20f);
+        doc.add(datePara);
+
+        // Aim
+        addSectionHeader(doc, "Aim");
+        Paragraph aimText = new Paragraph(exp.aim, styles.body);
+        aimText.setSpacingAfter(15f);
+        doc.add(aimText);
+
+        // Code
+        addSectionHeader(doc, "Program Code");
+        PdfPTable code = metrics.time(PhaseMetrics.Phase.HIGHLIGHT, () -> highlightedCode(exp.code));
+        addCodeBlock(doc, code);
+        doc.add(new Paragraph("\n"));
+
+        // Input (Optional)
+        if (exp.input != null && !exp.input.trim().isEmpty()) {
+            addSectionHeader(doc, "Input");
+            addOutputBlock(doc, exp.input);
+            doc.add(new Paragraph("\n"));
+        }
+
+        // Output (Text & Image)
+        addSectionHeader(doc, "Output");
+
+        // Text Output
+        if (exp.output != null && !exp.output.trim().isEmpty()) {
+            addOutputBlock(doc, exp.output);
+        }
+
+        // Image Output (for Swing/GUI)
+        if (exp.outputImagePath != null && !exp.outputImagePath.trim().isEmpty()) {
+            try {
+                // Scaled to fit the page width, leaving some margin
+                Image img = metrics.time(PhaseMetrics.Phase.IMAGES,
+                        () -> loadImage(exp.outputImagePath, printableWidth(doc), printableHeight(doc), false, metrics));
+
+                img.setBorder(Rectangle.BOX);
+                img.setBorderWidth(1f);
+                img.setBorderColor(styles.border);
+                img.setAlignment(Element.ALIGN_CENTER);
+                img.setSpacingBefore(10f);
+                img.setSpacingAfter(10f);
+
+                doc.add(img);
+            } catch (Exception ex) {
+                System.err.println("Could not load output image: " + exp.outputImagePath);
+            }
+        }
+
+        // Separator
+        doc.add(new Paragraph("\n"));
+        doc.add(new LineSeparator());
+    }
+
+    private void addSectionHeader(Document doc, String text) throws DocumentException {
+        Paragraph p = new Paragraph(text, styles.sectionHeader);
+        p.setSpacingAfter(10f);
+        doc.add(p);
+    }
+
+    // --- TITLE PAGE (LATEX MATCHING) ---
+    private void addTitlePage(Document doc, StudentInfo student, PhaseMetrics metrics) throws DocumentException {
+        // Outer border table
+        PdfPTable borderTable = new PdfPTable(1);
+        borderTable.setWidthPercentage(100);
+        // Simulating tcolorbox frame
+        borderTable.getDefaultCell().setBorder(Rectangle.BOX);
+        borderTable.getDefaultCell().setBorderWidth(2f);
+        borderTable.getDefaultCell().setPadding(20f);
+        borderTable.getDefaultCell().setMinimumHeight(doc.getPageSize().getHeight() - 120);
+
+        PdfPTable content = new PdfPTable(1);
+        content.setWidthPercentage(100);
+
+        Font fontLg = styles.titleLarge;
+        Font fontMd = styles.titleMedium;
+        Font fontReg = styles.titleRegular;
+        Font fontSm = styles.titleSmall;
+
+        addCenterText(content, "COLLEGE OF ENGINEERING", fontLg, 5);
+        addCenterText(content, "THIRUVANANTHAPURAM", fontLg, 20);
+        addCenterText(content, "DEPARTMENT OF", fontMd, 5);
+        addCenterText(content, "ELECTRICAL ENGINEERING", fontMd, 30);
+        addCenterText(content, "LABORATORY RECORD", fontLg, 5);
+        addCenterText(content, "for", fontReg, 5);
+        addCenterText(content, "PCEOL408 OBJECT ORIENTED PROGRAMMING LAB", fontLg, 30);
+
+        // LOGO
+        if (student.logoPath != null && !student.logoPath.isEmpty()) {
+            try {
+                Image img = metrics.time(PhaseMetrics.Phase.IMAGES,
+                        () -> loadImage(student.logoPath, LOGO_SIZE, LOGO_SIZE, true, metrics));
+                img.setAlignment(Element.ALIGN_CENTER);
+                PdfPCell imgCell = new PdfPCell(img);
+                imgCell.setBorder(0);
+                imgCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                imgCell.setPaddingBottom(20f);
+                content.addCell(imgCell);
+            } catch (Exception e) {
+                // Ignore missing logo
+            }
+        }
+
+        PdfPTable infoTable = new PdfPTable(new float[]{1f, 3f});
+        infoTable.setWidthPercentage(80);
+        infoTable.setHorizontalAlignment(Element.ALIGN_CENTER);
+
+        addInfoRow(infoTable, "Name:", student.name, fontReg);
+        addInfoRow(infoTable, "Reg No:", student.regNo, fontReg);
+        addInfoRow(infoTable, "Semester:", "Fourth Semester B.Tech (ECE)", fontReg);
+        addInfoRow(infoTable, "Year:", student.year, fontReg);
+
+        PdfPCell infoContainer = new PdfPCell(infoTable);
+        infoContainer.setBorder(0);
+        infoContainer.setPaddingBottom(30f);
+        content.addCell(infoContainer);
+
+        Paragraph certPara = new Paragraph("Certified that this is the bona fide record of work done by ______________________ in the Object Oriented Programming Lab during the academic year ______________ .", fontSm);
+        certPara.setAlignment(Element.ALIGN_CENTER);
+        certPara.setLeading(30f);
+
+        PdfPCell certCell = new PdfPCell();
+        certCell.setBorder(0);
+        certCell.setPaddingBottom(40f);
+        certCell.addElement(certPara);
+        content.addCell(certCell);
+
+        PdfPTable signTable = new PdfPTable(2);
+        signTable.setWidthPercentage(100);
+
+        PdfPCell signLeft = new PdfPCell(new Paragraph("Examiners", fontReg));
+        signLeft.setBorder(0);
+        signLeft.setHorizontalAlignment(Element.ALIGN_LEFT);
+
+        PdfPCell signRight = new PdfPCell(new Paragraph("Faculty in charge", fontReg));
+        signRight.setBorder(0);
+        signRight.setHorizontalAlignment(Element.ALIGN_RIGHT);
+
+        signTable.addCell(signLeft);
+        signTable.addCell(signRight);
+
+        PdfPCell dateLeft = new PdfPCell(new Paragraph("\n\nThiruvananthapuram\nDate: ____________", fontSm));
+        dateLeft.setBorder(0);
+        dateLeft.setHorizontalAlignment(Element.ALIGN_LEFT);
+
+        PdfPCell dateRight = new PdfPCell(new Paragraph("", fontSm));
+        dateRight.setBorder(0);
+
+        signTable.addCell(dateLeft);
+        signTable.addCell(dateRight);
+
+        PdfPCell signContainer = new PdfPCell(signTable);
+        signContainer.setBorder(0);
+        content.addCell(signContainer);
+
+        PdfPCell containerCell = new PdfPCell(content);
+        containerCell.setBorder(0);
+        borderTable.addCell(containerCell);
+
+        doc.add(borderTable);
+    }
+
+    private void addCenterText(PdfPTable table, String text, Font font, float spaceAfter) {
+        PdfPCell cell = new PdfPCell(new Paragraph(text, font));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setBorder(0);
+        cell.setPaddingBottom(spaceAfter);
+        table.addCell(cell);
+    }
+
+    private void addInfoRow(PdfPTable table, String label, String value, Font font) {
+        PdfPCell c1 = new PdfPCell(new Phrase(label, styles.infoLabel));
+        c1.setBorder(0);
+        c1.setPaddingBottom(8f);
+
+        PdfPCell c2 = new PdfPCell(new Phrase(value, font));
+        c2.setBorder(0);
+        c2.setPaddingBottom(8f);
+
+        table.addCell(c1);
+        table.addCell(c2);
+    }
+
+    // --- TABLE HEADERS ---
+    private void addHeaderCell(PdfPTable table, String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, styles.tableHeader));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        cell.setGrayFill(0.9f);
+        cell.setPadding(6);
+        table.addCell(cell);
+    }
+
+    private void addCell(PdfPTable table, String text, int alignment) {
+        addCell(table, new Phrase(text, styles.tableCell), alignment);
+    }
+
+    private void addCell(PdfPTable table, Phrase content, int alignment) {
+        PdfPCell cell = new PdfPCell(content);
+        cell.setPadding(5);
+        cell.setHorizontalAlignment(alignment);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        table.addCell(cell);
+    }
+
+    // --- HIGHLIGHTED CODE (MATCHING LATEX LISTINGS) ---
+    /**
+     * The image at {@code path} for a {@code boxWidth x boxHeight} point box: always fitted into it
+     * with {@code alwaysFit}, otherwise only shrunk when wider. Goes through the image pipeline
+     * when there is one; a file ImageIO cannot decode (a CMYK or YCCK JPEG, say) is embedded as
+     * it is, scaled the way it was before the pipeline existed.
+     */
+    private Image loadImage(String path, float boxWidth, float boxHeight, boolean alwaysFit, PhaseMetrics metrics)
+            throws IOException, DocumentException {
+        if (images != null) {
+            try {
+                // Already downsampled to the printed size; only the display size needs setting
+                ImagePipeline.Prepared prepared = images.prepare(path, boxWidth, boxHeight, alwaysFit);
+                Image image = Image.getInstance(prepared.data);
+                image.scaleAbsolute(prepared.width, prepared.height);
+                metrics.imageEmbedded(prepared.originalBytes, prepared.data.length);
+                return image;
+            } catch (IOException | CompletionException e) {
+                // Not decodable here; iText may still embed it below (a missing file fails there too)
+            }
+        }
+        Image image = Image.getInstance(path);
+        if (alwaysFit || image.getWidth() > boxWidth) image.scaleToFit(boxWidth, boxHeight);
+        long bytes = new File(path).length();
+        metrics.imageEmbedded(bytes, bytes);
+        return image;
+    }
+
+    void addHighlightedCodeBlock(Document doc, String code) throws DocumentException {
+        addCodeBlock(doc, highlightedCode(code));
+    }
+
+    // Tokenizes the code into line groups of styled chunks (the "highlight" phase; adding them to the page is layout)
+    private PdfPTable highlightedCode(String code) {
+        return listing.layout(code != null ? OutputText.sanitize(code) : "", styles);
+    }
+
+    private void addCodeBlock(Document doc, PdfPTable listing) throws DocumentException {
+        doc.add(listing);
+    }
+
+    // --- OUTPUT BLOCK (MATCHING LATEX TCOLORBOX) ---
+    void addOutputBlock(Document doc, String output) throws DocumentException {
+        output = outputs.bound(output); // rows saved before the budget existed can still be huge
+
+        PdfPTable table = new PdfPTable(1);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(5f);
+
+        PdfPCell cell = new PdfPCell(new Phrase(output != null ? output : "", styles.output));
+        cell.setBackgroundColor(styles.outputBackground);
+        cell.setPadding(10f);
+        cell.setBorderColor(styles.border);
+        cell.setBorderWidth(1f);
+
+        table.addCell(cell);
+        doc.add(table);
+    }
+
+    // --- PAGE NUMBERS ---
+    static class HeaderFooterPageEvent extends PdfPageEventHelper {
+        String header;
+        Font font;
+
+        public HeaderFooterPageEvent(String header, Font font) { this.header = header; this.font = font; }
+
+        public void onEndPage(PdfWriter writer, Document document) {
+            if(writer.getPageNumber() == 1) return;
+            PdfContentByte cb = writer.getDirectContent();
+            ColumnText.showTextAligned(cb, Element.ALIGN_LEFT, new Phrase(header, font),
+                    document.left(), document.top() + 10, 0);
+            ColumnText.showTextAligned(cb, Element.ALIGN_RIGHT, new Phrase("Page " + writer.getPageNumber(), font),
+                    document.right(), document.bottom() - 10, 0);
+        }
+    }
+}
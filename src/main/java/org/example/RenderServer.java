@@ -0,0 +1,435 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Headless HTTP service that renders records on request, so a department portal can fetch them
+ * without the desktop app. Built on the JDK's own {@code com.sun.net.httpserver} and bound to
+ * the loopback address only.
+ * <p>
+ * Usage: {@code --serve [--port N] [--concurrency N] [--queue N] [--no-cache]}
+ * <ul>
+ * <li>{@code POST /render} takes a JSON body and answers with the PDF, streamed while it is
+ * written. {@code student} ({@code name}, {@code regNo}, {@code year}) defaults field by field
+ * to the details saved in the workspace. {@code experiments} (objects with {@code no},
+ * {@code name}, {@code date}, {@code aim}, {@code code}, {@code input}, {@code output}) or
+ * {@code experimentIds} (stored rows) choose the content; with neither, every stored
+ * experiment is rendered.
+ * <li>{@code GET /metrics} reports request counts and latency percentiles as JSON.
+ * </ul>
+ * Every exchange runs on its own virtual thread. At most {@code concurrency} renders run at
+ * once and {@code queue} more may wait for a slot; anything beyond that is turned away at once
+ * with {@code 429} and {@code Retry-After}, so a burst costs neither memory nor latency for
+ * the requests already admitted. Bad requests get a JSON error before any PDF byte is sent.
+ * A render that fails midway drops the connection, so the client sees a truncated response
+ * rather than a PDF that looks complete.
+ */
+final class RenderServer {
+
+    static final int DEFAULT_PORT = 8765;
+    static final int DEFAULT_CONCURRENCY = Math.max(1, Runtime.getRuntime().availableProcessors());
+    static final int DEFAULT_QUEUE = 16;
+    static final int MAX_BODY_BYTES = 32 * 1024 * 1024;
+    static final int LATENCY_WINDOW = 1024;
+    private static final int RESPONSE_BUFFER = 64 * 1024;
+
+    // --- What one POST /render asks for; parts left out come from the workspace ---
+    static final class RenderRequest {
+        String name, regNo, year;
+        List<Experiment> experiments;
+        List<Integer> experimentIds;
+    }
+
+    // --- A request that cannot be served, with the status to answer it with ---
+    static final class RequestError extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final RecordRenderer renderer;
+    private final Database workspace;
+    private final int concurrency, queue;
+    private final Semaphore admitted; // running + waiting
+    private final Semaphore rendering;
+    private final AtomicLong completed = new AtomicLong(), invalid = new AtomicLong(), failed = new AtomicLong(), rejected = new AtomicLong();
+    private final Latencies latencies = new Latencies(LATENCY_WINDOW);
+
+    RenderServer(RecordRenderer renderer, Database workspace, int concurrency, int queue) {
+        this.renderer = renderer;
+        this.workspace = workspace;
+        this.concurrency = concurrency;
+        this.queue = queue;
+        this.admitted = new Semaphore(concurrency + queue);
+        this.rendering = new Semaphore(concurrency, true);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int port = DEFAULT_PORT, concurrency = DEFAULT_CONCURRENCY, queue = DEFAULT_QUEUE;
+        boolean useCache = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--concurrency": concurrency = Integer.parseInt(args[++i]); break;
+                case "--queue": queue = Integer.parseInt(args[++i]); break;
+                case "--no-cache": useCache = false; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+        if (port < 0 || concurrency < 1 || queue < 0) {
+            printUsage();
+            System.exit(2);
+        }
+
+        try {
+            // One connection per running render (stored experiments stream from SQLite) plus one for lookups
+            Database workspace = Database.open(AppPaths.databaseFile(), Math.max(Database.DEFAULT_POOL_SIZE, concurrency + 1));
+            FragmentCache fragmentCache = useCache ? FragmentCache.openDefault() : null;
+            RenderServer server = new RenderServer(new RecordRenderer(fragmentCache, ImagePipeline.shared()), workspace, concurrency, queue);
+            HttpServer http = server.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                http.stop(1);
+                workspace.close();
+            }));
+            InetSocketAddress address = http.getAddress();
+            System.out.println("Rendering records on http://" + address.getHostString() + ":" + address.getPort()
+                    + "/render (metrics at /metrics), " + concurrency + " at a time, " + queue + " queued");
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: --serve [--port N] [--concurrency N] [--queue N] [--no-cache]");
+    }
+
+    HttpServer start(int port) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        http.createContext("/render", this::handleRender);
+        http.createContext("/metrics", this::handleMetrics);
+        http.start();
+        return http;
+    }
+
+    // ==========================================
+    // POST /render
+    // ==========================================
+    private void handleRender(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("POST")) {
+            sendError(ex, 405, "Use POST with a JSON body");
+            return;
+        }
+        if (!admitted.tryAcquire()) {
+            rejected.incrementAndGet();
+            ex.getResponseHeaders().set("Retry-After", "1");
+            sendError(ex, 429, "Busy: " + concurrency + " renders running and " + queue + " waiting");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean streaming = false;
+        try {
+            RenderRequest request = readRequest(new InputStreamReader(
+                    new LimitedInputStream(ex.getRequestBody(), MAX_BODY_BYTES), StandardCharsets.UTF_8));
+            StudentInfo student = studentFor(request);
+            rendering.acquire();
+            try (ExperimentSource source = sourceFor(request)) {
+                ex.getResponseHeaders().set("Content-Type", "application/pdf");
+                ex.getResponseHeaders().set("Content-Disposition", contentDisposition(student));
+                ex.sendResponseHeaders(200, 0); // chunked: bytes leave as the record is written
+                streaming = true;
+                OutputStream out = new BufferedOutputStream(ex.getResponseBody(), RESPONSE_BUFFER);
+                renderer.render(out, student, source, RecordRenderer.NO_PROGRESS);
+                out.close(); // ends the chunked body
+            } finally {
+                rendering.release();
+            }
+            completed.incrementAndGet();
+            latencies.add(System.nanoTime() - start);
+        } catch (RequestError e) {
+            invalid.incrementAndGet();
+            sendError(ex, e.status, e.getMessage());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            // Thrown out of the handler, the server closes the connection without ending the body
+            if (streaming) throw new IOException("Render failed after the response started", e);
+            sendError(ex, 500, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            admitted.release();
+        }
+    }
+
+    // Malformed JSON and values of the wrong shape are the client's error (400)
+    static RenderRequest readRequest(Reader in) throws IOException {
+        try {
+            return parseRequest(in);
+        } catch (RequestError e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RequestError(400, e.getMessage());
+        }
+    }
+
+    private static RenderRequest parseRequest(Reader in) throws IOException {
+        RenderRequest request = new RenderRequest();
+        try (JsonReader json = new JsonReader(in)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "student":
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            switch (json.nextName()) {
+                                case "name": request.name = json.nextText(); break;
+                                case "regNo": request.regNo = json.nextText(); break;
+                                case "year": request.year = json.nextText(); break;
+                                default: json.skipValue();
+                            }
+                        }
+                        json.endObject();
+                        break;
+                    case "experiments":
+                        request.experiments = new ArrayList<>();
+                        json.beginArray();
+                        while (json.hasNext()) request.experiments.add(readExperiment(json, request.experiments.size() + 1));
+                        json.endArray();
+                        break;
+                    case "experimentIds":
+                        request.experimentIds = new ArrayList<>();
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            String id = json.nextText();
+                            try {
+                                request.experimentIds.add(Integer.parseInt(id));
+                            } catch (NumberFormatException e) {
+                                throw new RequestError(400, "Not an experiment id: " + id);
+                            }
+                        }
+                        json.endArray();
+                        break;
+                    default: json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        return request;
+    }
+
+    // Input and output are held to the output budget while they are decoded
+    private static Experiment readExperiment(JsonReader json, int position) throws IOException {
+        String no = String.valueOf(position), name = "", date = "", aim = "", code = "", input = "", output = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "no": no = json.nextText(); break;
+                case "name": name = json.nextText(); break;
+                case "date": date = json.nextText(); break;
+                case "aim": aim = OutputText.sanitize(json.nextText()); break;
+                case "code": code = OutputText.sanitize(json.nextText()); break;
+                case "input": input = OutputText.DEFAULT.read(json); break;
+                case "output": output = OutputText.DEFAULT.read(json); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Experiment(0, no, name, date, aim, code, input, output, "");
+    }
+
+    private StudentInfo studentFor(RenderRequest request) throws SQLException {
+        Map<String, String> saved = new SettingsDao(workspace).loadAll();
+        return new StudentInfo(orSaved(request.name, saved.get("student_name")), orSaved(request.regNo, saved.get("reg_no")),
+                orSaved(request.year, saved.get("year_sem")), saved.get("logo_path"));
+    }
+
+    // filename is the sanitized name ([A-Za-z0-9._-] only, nothing to escape); filename* keeps the
+    // reg no as sent, percent-encoded (RFC 6266 / 5987), when sanitizing changed it
+    static String contentDisposition(StudentInfo student) {
+        String safe = student.pdfFileName();
+        String original = "Lab_Record_" + (student.regNo == null ? "" : student.regNo) + ".pdf";
+        if (original.equals(safe)) return "inline; filename=\"" + safe + "\"";
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : original.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || "!#$&+-.^_`|~".indexOf(c) >= 0) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return "inline; filename=\"" + safe + "\"; filename*=UTF-8''" + encoded;
+    }
+
+    private static String orSaved(String requested, String saved) {
+        return requested != null ? requested : saved != null ? saved : "";
+    }
+
+    // Posted experiments, stored rows by id, or the whole stored table streamed row by row
+    private ExperimentSource sourceFor(RenderRequest request) throws SQLException, RequestError {
+        ExperimentDao dao = new ExperimentDao(workspace);
+        if (request.experiments != null) {
+            if (request.experiments.isEmpty()) throw new RequestError(400, "No experiments to render");
+            return ExperimentSource.of(request.experiments);
+        }
+        if (request.experimentIds != null) {
+            if (request.experimentIds.isEmpty()) throw new RequestError(400, "No experiments to render");
+            List<Experiment> stored = new ArrayList<>(request.experimentIds.size());
+            for (int id : request.experimentIds) {
+                Experiment exp = dao.findById(id);
+                if (exp == null) throw new RequestError(404, "No stored experiment with id " + id);
+                stored.add(exp);
+            }
+            return ExperimentSource.of(stored);
+        }
+        if (dao.count() == 0) throw new RequestError(404, "The workspace has no experiments");
+        return dao.openSource();
+    }
+
+    // ==========================================
+    // GET /metrics
+    // ==========================================
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            sendError(ex, 405, "Use GET");
+            return;
+        }
+        send(ex, 200, metricsJson());
+    }
+
+    String metricsJson() {
+        int running = concurrency - rendering.availablePermits();
+        int waiting = Math.max(0, concurrency + queue - admitted.availablePermits() - running);
+        long[] sorted = latencies.sorted();
+        StringBuilder sb = new StringBuilder(320);
+        sb.append("{\n");
+        sb.append("  \"completed\": ").append(completed.get()).append(",\n");
+        sb.append("  \"invalid\": ").append(invalid.get()).append(",\n");
+        sb.append("  \"failed\": ").append(failed.get()).append(",\n");
+        sb.append("  \"rejected\": ").append(rejected.get()).append(",\n");
+        sb.append("  \"running\": ").append(running).append(",\n");
+        sb.append("  \"waiting\": ").append(waiting).append(",\n");
+        sb.append("  \"concurrency\": ").append(concurrency).append(",\n");
+        sb.append("  \"queue\": ").append(queue).append(",\n");
+        sb.append("  \"latencyMillis\": {\"samples\": ").append(sorted.length);
+        if (sorted.length > 0) {
+            sb.append(", \"p50\": ").append(millis(percentile(sorted, 50)))
+                    .append(", \"p90\": ").append(millis(percentile(sorted, 90)))
+                    .append(", \"p99\": ").append(millis(percentile(sorted, 99)))
+                    .append(", \"max\": ").append(millis(sorted[sorted.length - 1]));
+        }
+        return sb.append("}\n}\n").toString();
+    }
+
+    // Nearest-rank percentile of an ascending array
+    static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    // --- Wall time of the most recent successful renders, admission to last byte ---
+    static final class Latencies {
+        private final long[] nanos;
+        private int next, count;
+
+        Latencies(int window) { nanos = new long[window]; }
+
+        synchronized void add(long n) {
+            nanos[next] = n;
+            next = (next + 1) % nanos.length;
+            if (count < nanos.length) count++;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    // ==========================================
+    // RESPONSES
+    // ==========================================
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"error\": \"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c >= 0x20) sb.append(c);
+        }
+        send(ex, status, sb.append("\"}\n").toString());
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // --- Request body that refuses to grow past a limit ---
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        private void count(int n) throws RequestError {
+            remaining -= n;
+            if (remaining < 0) throw new RequestError(413, "Request body over " + MAX_BODY_BYTES / (1024 * 1024) + " MB");
+        }
+    }
+}
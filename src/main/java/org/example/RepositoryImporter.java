@@ -0,0 +1,277 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a GitHub Classroom assignment checkout into an {@link Experiment}: title and
+ * number from the README, I/O from every test in {@code .github/classroom/autograding.json}
+ * and the program from the main class under {@code src} (see {@link SourceIndex}).
+ * Test input and output are held to {@link OutputText#DEFAULT} while they are read.
+ * Parsing touches only the filesystem, so many repositories can be parsed concurrently.
+ */
+class RepositoryImporter {
+
+    private static final Pattern EXPERIMENT_HEADING = Pattern.compile("(?i)#\\s*Experiment\\s+(\\d+)[\\s:\\-]*(.*)");
+
+    // --- Result for one directory of a bulk import ---
+    static class Outcome {
+        final File repoDir;
+        final Experiment experiment;
+        final String skipReason;
+
+        Outcome(File repoDir, Experiment experiment, String skipReason) {
+            this.repoDir = repoDir; this.experiment = experiment; this.skipReason = skipReason;
+        }
+
+        boolean imported() { return experiment != null; }
+    }
+
+    // --- One entry of the autograding "tests" array ---
+    static class AutogradingTest {
+        final String name, run, input, output;
+
+        AutogradingTest(String name, String run, String input, String output) {
+            this.name = name; this.run = run; this.input = input; this.output = output;
+        }
+    }
+
+    private RepositoryImporter() {}
+
+    // A checkout has at least a README or a src folder; anything else in the parent is skipped
+    static boolean looksLikeRepository(File dir) {
+        return new File(dir, "README.md").exists() || new File(dir, "readme.md").exists()
+                || new File(dir, "src").isDirectory();
+    }
+
+    /**
+     * Parses every repository directly under {@code parentDir} in parallel. Results come
+     * back in directory-name order; repos whose README has no experiment number are
+     * numbered from {@code firstExpNo} in that order.
+     */
+    static List<Outcome> parseAll(File parentDir, int firstExpNo) throws InterruptedException {
+        return parseAll(parentDir, firstExpNo, SourceIndex.DEFAULT_PRUNED_DIRS);
+    }
+
+    // prunedDirs: folder names the source search never enters (see SourceIndex.prunedDirs)
+    static List<Outcome> parseAll(File parentDir, int firstExpNo, Set<String> prunedDirs) throws InterruptedException {
+        File[] dirs = parentDir.listFiles(File::isDirectory);
+        if (dirs == null) return new ArrayList<>();
+        Arrays.sort(dirs, Comparator.comparing(File::getName));
+
+        List<Future<Outcome>> pending = new ArrayList<>();
+        // Parsing is file I/O bound, so a virtual thread per repo is cheaper than a sized pool
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int nextNo = firstExpNo;
+            for (File dir : dirs) {
+                if (!looksLikeRepository(dir)) {
+                    pending.add(CompletableFuture.completedFuture(
+                            new Outcome(dir, null, "no README.md or src folder")));
+                    continue;
+                }
+                String fallbackNo = String.valueOf(nextNo++);
+                pending.add(executor.submit(() -> {
+                    try {
+                        return new Outcome(dir, parse(dir, fallbackNo, prunedDirs, new PhaseMetrics("import")), null);
+                    } catch (Exception e) {
+                        return new Outcome(dir, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    }
+                }));
+            }
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(pending.size());
+        for (Future<Outcome> f : pending) {
+            try {
+                outcomes.add(f.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return outcomes;
+    }
+
+    // ==========================================
+    // SINGLE REPOSITORY
+    // ==========================================
+    static Experiment parse(File repoDir, String defaultExpNo) {
+        return parse(repoDir, defaultExpNo, SourceIndex.DEFAULT_PRUNED_DIRS, new PhaseMetrics("import"));
+    }
+
+    // Times README, autograding, source search and source read as separate phases of metrics
+    static Experiment parse(File repoDir, String defaultExpNo, Set<String> prunedDirs, PhaseMetrics metrics) {
+        String expName = "Imported Experiment";
+        String expNo = defaultExpNo;
+        boolean numberFromRepo = false;
+
+        File readmeFile = new File(repoDir, "README.md");
+        if (!readmeFile.exists()) readmeFile = new File(repoDir, "readme.md");
+
+        if (readmeFile.exists()) {
+            File readme = readmeFile;
+            try {
+                String heading = metrics.time(PhaseMetrics.Phase.README, () -> readmeHeading(readme));
+                Matcher matcher = heading != null ? EXPERIMENT_HEADING.matcher(heading) : null;
+                if (matcher != null && matcher.find()) {
+                    expNo = matcher.group(1).trim();
+                    numberFromRepo = true;
+                    expName = matcher.group(2).trim();
+                } else if (heading != null) {
+                    expName = heading.replace("#", "").trim();
+                }
+            } catch (Exception e) { e.printStackTrace(); }
+        }
+
+        File autogradingFile = new File(repoDir, ".github/classroom/autograding.json");
+        String input = "", output = "", runCmd = "";
+
+        if (autogradingFile.exists()) {
+            try {
+                List<AutogradingTest> tests = metrics.time(PhaseMetrics.Phase.AUTOGRADING,
+                        () -> readAutogradingTests(autogradingFile, OutputText.DEFAULT));
+                for (AutogradingTest t : tests) {
+                    if (!t.run.isEmpty()) { runCmd = t.run; break; }
+                }
+                if (tests.size() == 1) {
+                    input = tests.get(0).input;
+                    output = tests.get(0).output;
+                } else if (tests.size() > 1) {
+                    input = OutputText.DEFAULT.bound(joinTests(tests, true));
+                    output = OutputText.DEFAULT.bound(joinTests(tests, false));
+                }
+            } catch (Exception e) { e.printStackTrace(); }
+        }
+
+        File srcDir = new File(repoDir, "src");
+        String code = "// Could not find 'src' folder or .java files.";
+
+        if (srcDir.exists() && srcDir.isDirectory()) {
+            String className = mainClassName(runCmd);
+
+            File javaFile = null;
+            try {
+                Path mainFile = metrics.time(PhaseMetrics.Phase.SOURCE_SEARCH,
+                        () -> SourceIndex.build(srcDir.toPath(), prunedDirs).findMainFile(className));
+                if (mainFile != null) javaFile = mainFile.toFile();
+            } catch (IOException e) { e.printStackTrace(); }
+
+            if (javaFile != null && javaFile.exists()) {
+                Path source = javaFile.toPath();
+                try { code = metrics.time(PhaseMetrics.Phase.SOURCE_READ, () -> new String(Files.readAllBytes(source))); }
+                catch (Exception e) { code = "// Error reading Java file."; }
+            } else { code = "// Could not find the main Java file in the src directory."; }
+        }
+
+        String date = new SimpleDateFormat("dd/MM/yyyy").format(new Date());
+        String aim = "To implement " + expName;
+
+        Experiment exp = new Experiment(0, expNo, expName, date, aim, code, input, output, "");
+        exp.repoPath = repoDir.getAbsolutePath();
+        exp.numberFromRepo = numberFromRepo;
+        exp.contentHash = contentHash(exp);
+        return exp;
+    }
+
+    // The first heading that names the experiment: "# Experiment N: title", or any "# title"
+    // but GitHub Classroom's review badge; null when there is none
+    private static String readmeHeading(File readme) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(readme))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (EXPERIMENT_HEADING.matcher(line).find()) return line;
+                if (line.startsWith("# ") && !line.toLowerCase().contains("![review assignment")) return line;
+            }
+        }
+        return null;
+    }
+
+    // "java Main.java" or "java -cp out pkg.Main" names Main; "" when there is no run command
+    private static String mainClassName(String runCmd) {
+        if (runCmd == null || runCmd.isEmpty()) return "";
+        String[] parts = runCmd.trim().split(" ");
+        String className = parts[parts.length - 1].replace(".java", "").trim();
+        if (className.contains(".")) className = className.substring(className.lastIndexOf(".") + 1);
+        return className;
+    }
+
+    /**
+     * Hash of everything an import derives from the repository. The date (today) and the
+     * number (a fallback when the README has none) are left out, so re-parsing an
+     * untouched checkout always yields the same hash.
+     */
+    static String contentHash(Experiment exp) {
+        MessageDigest md = Digests.sha256();
+        for (String field : new String[]{exp.name, exp.aim, exp.code, exp.input, exp.output}) Digests.update(md, field);
+        return Digests.toHex(md.digest());
+    }
+
+    // ==========================================
+    // AUTOGRADING
+    // ==========================================
+    static List<AutogradingTest> readAutogradingTests(File file, OutputText budget) throws IOException {
+        List<AutogradingTest> tests = new ArrayList<>();
+        try (JsonReader json = new JsonReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!json.nextName().equals("tests") || json.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    if (json.peek() != JsonReader.Token.BEGIN_OBJECT) { json.skipValue(); continue; }
+                    String name = "", run = "", input = "", output = "";
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        switch (json.nextName()) {
+                            case "name": name = json.nextText(); break;
+                            case "run": run = json.nextText(); break;
+                            case "input": input = budget.read(json); break;
+                            case "output": output = budget.read(json); break;
+                            default: json.skipValue();
+                        }
+                    }
+                    json.endObject();
+                    tests.add(new AutogradingTest(name, run, input, output));
+                }
+                json.endArray();
+            }
+            json.endObject();
+        }
+        return tests;
+    }
+
+    // Multi-test assignments keep every I/O pair, each under a "--- test name ---" header
+    private static String joinTests(List<AutogradingTest> tests, boolean inputs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tests.size(); i++) {
+            AutogradingTest t = tests.get(i);
+            if (sb.length() > 0) sb.append("\n\n");
+            sb.append("--- ").append(t.name.isEmpty() ? "Test " + (i + 1) : t.name).append(" ---\n");
+            sb.append(inputs ? t.input : t.output);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,226 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches imported repository checkouts and reports a repository once its files have
+ * been quiet for {@code quietMillis}, so a {@code git pull} touching twenty files
+ * produces one callback, not twenty.
+ * <p>
+ * Only the directories an import reads are registered: the repository root (README),
+ * {@code .github} and {@code .github/classroom} (autograding, also once created later) and the source tree under {@code src}, pruned
+ * by the same folder names as {@link SourceIndex}. Events for other files are ignored, and nothing is polled,
+ * so idle repositories cost nothing. Callbacks run on the watcher thread.
+ */
+class RepositoryWatcher implements AutoCloseable {
+
+    static final long DEFAULT_QUIET_MILLIS = 750;
+
+    // --- Called once per burst of changes to one repository ---
+    interface ChangeHandler {
+        void repositoryChanged(File repoDir);
+    }
+
+    private final WatchService service;
+    private final ChangeHandler handler;
+    private final long quietMillis;
+    private final Set<String> prunedDirs;
+    private final Thread thread;
+
+    // Guarded by this
+    private final Map<WatchKey, Path> keyDirs = new HashMap<>();
+    private final Map<WatchKey, Path> keyRepos = new HashMap<>();
+    // Touched only by the watcher thread: repo -> deadline (ms) after its latest event
+    private final Map<Path, Long> pending = new LinkedHashMap<>();
+
+    RepositoryWatcher(ChangeHandler handler, long quietMillis, Set<String> prunedDirs) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.handler = handler;
+        this.quietMillis = quietMillis;
+        this.prunedDirs = prunedDirs;
+        this.thread = new Thread(this::run, "repository-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Idempotent: watching an already watched repository is a no-op
+    synchronized void watch(File repoDir) throws IOException {
+        Path repo = repoDir.toPath().toAbsolutePath().normalize();
+        if (keyRepos.containsValue(repo)) return;
+        register(repo, repo);
+        registerAutograding(repo);
+        Path src = repo.resolve("src");
+        if (Files.isDirectory(src)) registerTree(src, repo);
+    }
+
+    synchronized void unwatch(File repoDir) {
+        Path repo = repoDir.toPath().toAbsolutePath().normalize();
+        for (Iterator<Map.Entry<WatchKey, Path>> it = keyRepos.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<WatchKey, Path> e = it.next();
+            if (e.getValue().equals(repo)) {
+                e.getKey().cancel();
+                keyDirs.remove(e.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    synchronized int watchedRepositories() {
+        return (int) keyRepos.values().stream().distinct().count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close(); // wakes the watcher thread with ClosedWatchServiceException
+    }
+
+    // ==========================================
+    // REGISTRATION
+    // ==========================================
+    private void register(Path dir, Path repo) throws IOException {
+        WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        keyDirs.put(key, dir);
+        keyRepos.put(key, repo);
+    }
+
+    // .github is watched too (when present), so a classroom folder added later is picked up
+    private void registerAutograding(Path repo) throws IOException {
+        Path github = repo.resolve(".github");
+        if (!Files.isDirectory(github)) return;
+        if (!keyDirs.containsValue(github)) register(github, repo);
+        Path classroom = github.resolve("classroom");
+        if (Files.isDirectory(classroom) && !keyDirs.containsValue(classroom)) register(classroom, repo);
+    }
+
+    // WatchService is not recursive on every platform, so each source directory gets its own key
+    private void registerTree(Path root, Path repo) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && prunedDirs.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(dir, repo);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // ==========================================
+    // EVENT LOOP
+    // ==========================================
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = pending.isEmpty() ? service.take() : service.poll(nextDeadline(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                }
+                fireDue();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Watcher closed
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path dir, repo;
+        synchronized (this) {
+            dir = keyDirs.get(key);
+            repo = keyRepos.get(key);
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (repo == null) break; // unwatched since the event was queued
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                touch(repo);
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && isAutogradingDir(repo, child)) {
+                try {
+                    synchronized (this) { registerAutograding(repo); }
+                } catch (IOException e) {
+                    System.err.println("Could not watch " + child + ": " + e.getMessage());
+                }
+                touch(repo); // autograding.json may already be inside
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child) && isUnderSource(repo, child)) {
+                try {
+                    synchronized (this) { registerTree(child, repo); }
+                } catch (IOException e) {
+                    System.err.println("Could not watch " + child + ": " + e.getMessage());
+                }
+                touch(repo); // files may have landed before the new directory was registered
+            } else if (isRelevant(repo, dir, child.getFileName().toString())
+                    || (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && isUnderSource(repo, child))) {
+                touch(repo);
+            }
+        }
+        if (!key.reset()) {
+            synchronized (this) {
+                keyDirs.remove(key);
+                keyRepos.remove(key);
+            }
+        }
+    }
+
+    private static boolean isAutogradingDir(Path repo, Path child) {
+        Path github = repo.resolve(".github");
+        return child.equals(github) || child.equals(github.resolve("classroom"));
+    }
+
+    private boolean isUnderSource(Path repo, Path child) {
+        return child.startsWith(repo.resolve("src"))
+                && !prunedDirs.contains(child.getFileName().toString());
+    }
+
+    // The same files RepositoryImporter.parse reads; editor swap files and build output are ignored
+    private static boolean isRelevant(Path repo, Path dir, String name) {
+        if (dir.equals(repo)) return name.equalsIgnoreCase("README.md");
+        if (name.endsWith(".java")) return true;
+        return name.equals("autograding.json");
+    }
+
+    private void touch(Path repo) {
+        pending.remove(repo); // re-insert so iteration order follows the latest event
+        pending.put(repo, System.currentTimeMillis() + quietMillis);
+    }
+
+    private long nextDeadline() {
+        long now = System.currentTimeMillis(), next = Long.MAX_VALUE;
+        for (long deadline : pending.values()) next = Math.min(next, deadline);
+        return Math.max(1, next - now);
+    }
+
+    private void fireDue() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Long> e = it.next();
+            if (e.getValue() > now) continue;
+            it.remove();
+            try {
+                handler.repositoryChanged(e.getKey().toFile());
+            } catch (RuntimeException ex) {
+                ex.printStackTrace(); // one bad repository must not stop the watcher
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over title, aim, code and output of every experiment.
+ * <p>
+ * {@code experiments_fts} is an FTS5 index with external content: it stores only the
+ * inverted index, and reads text back (for snippets) through the {@code experiment_text}
+ * view, which inflates the blob store for the few rows a result page shows.
+ * <p>
+ * The index is kept in step through {@code experiments_fts_log}. Plain SQL triggers on
+ * {@code experiments} record every insert, edit, import and delete there, with the row's
+ * old values, whichever program writes the row (the sqlite3 shell or a script included:
+ * the triggers call no app function). The app applies the log to the index when the
+ * database is opened and before every search ({@link #applyLog}), inflating the old
+ * text so FTS5 can remove exactly what it indexed.
+ * <p>
+ * Ranking is bm25 with titles weighted highest, stored as the table's default rank so
+ * {@code ORDER BY rank LIMIT n} is answered inside FTS5 and snippets are built only for
+ * the rows returned. Scoring still visits every match, so a word found in nearly every
+ * experiment ({@code System}, {@code main}) is not ranked: past {@link #MAX_RANKED_MATCHES}
+ * the first matches are returned in table order, which keeps each query well under 50 ms on
+ * a 50k-experiment database.
+ */
+class SearchIndex {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_RANKED_MATCHES = 10_000; // bm25 costs about 1.5 us per match
+
+    // Wraps the matched terms in a snippet; control characters never occur in the indexed text
+    static final String MATCH_OPEN = String.valueOf((char) 2);
+    static final String MATCH_CLOSE = String.valueOf((char) 3);
+
+    private static final String RANK = "bm25(10.0, 4.0, 1.0, 1.0)"; // title, aim, code, output
+    private static final int SNIPPET_TOKENS = 16;
+
+    // Triggers from before the change log; they call lab_text, so only the app could write experiments
+    private static final String[] LEGACY_TRIGGERS = {"experiments_fts_insert", "experiments_fts_delete", "experiments_fts_update"};
+
+    // Old values of a logged row, as text (blob first, inline text written by an older build second)
+    private static String blobText(String row, String column) {
+        return "COALESCE((SELECT " + BlobStore.textOf("b") + " FROM blobs b WHERE b.hash = " + row + "." + column + "_hash), "
+                + row + "." + column + ")";
+    }
+
+    private static final String OLD_COLUMNS = "title, aim, code, code_hash, input_hash, output, output_hash";
+    private static final String OLD_VALUES = "old.title, old.aim, old.code, old.code_hash, old.input_hash, old.output, old.output_hash";
+
+    // Only a row's first entry holds what is in the index; later entries (and inserts) were never indexed
+    private static final String LOG_PENDING = "SELECT EXISTS (SELECT 1 FROM experiments_fts_log)";
+    private static final String LOG_REMOVE_INDEXED = "INSERT INTO experiments_fts(experiments_fts, rowid, title, aim, code, output) " +
+            "SELECT 'delete', l.id, l.title, l.aim, " + blobText("l", "code") + ", " + blobText("l", "output") + " " +
+            "FROM experiments_fts_log l WHERE l.indexed = 1 AND l.seq = (SELECT MIN(f.seq) FROM experiments_fts_log f WHERE f.id = l.id)";
+    private static final String LOG_ADD_CURRENT = "INSERT INTO experiments_fts(rowid, title, aim, code, output) " +
+            "SELECT id, title, aim, code, output FROM experiment_text WHERE id IN (SELECT id FROM experiments_fts_log)";
+    private static final String LOG_CLEAR = "DELETE FROM experiments_fts_log";
+    private static final String LOG_OLD_HASHES = "SELECT code_hash FROM experiments_fts_log UNION " +
+            "SELECT input_hash FROM experiments_fts_log UNION SELECT output_hash FROM experiments_fts_log";
+
+    private static final String COUNT = "SELECT COUNT(*) FROM experiments_fts WHERE experiments_fts MATCH ?";
+    private static final String HITS = "SELECT f.rowid, e.exp_no, e.title, " +
+            "snippet(experiments_fts, -1, ?, ?, '...', " + SNIPPET_TOKENS + ") " +
+            "FROM experiments_fts f JOIN experiments e ON e.id = f.rowid " +
+            "WHERE experiments_fts MATCH ?";
+    private static final String RANKED_HITS = HITS + " ORDER BY f.rank LIMIT ?";
+    private static final String UNRANKED_HITS = HITS + " ORDER BY f.rowid LIMIT ?";
+
+    // --- One ranked result; the snippet marks matches with MATCH_OPEN / MATCH_CLOSE ---
+    static final class Hit {
+        final int id;
+        final String no;
+        final String title;
+        final String snippet;
+
+        Hit(int id, String no, String title, String snippet) {
+            this.id = id; this.no = no; this.title = title; this.snippet = snippet;
+        }
+    }
+
+    // --- The hits shown plus how many experiments matched in all ---
+    static final class Result {
+        final List<Hit> hits;
+        final int totalMatches;
+        final boolean ranked;
+
+        Result(List<Hit> hits, int totalMatches, boolean ranked) {
+            this.hits = hits; this.totalMatches = totalMatches; this.ranked = ranked;
+        }
+    }
+
+    private final Database db;
+
+    SearchIndex(Database db) {
+        this.db = db;
+    }
+
+    // ==========================================
+    // SCHEMA
+    // ==========================================
+    // Call after the blob store migration, so a new index is built once from the final rows
+    static void createSchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE VIEW IF NOT EXISTS experiment_text AS SELECT e.id AS id, e.title AS title, e.aim AS aim, " +
+                "COALESCE(" + BlobStore.textOf("cb") + ", e.code) AS code, " +
+                "COALESCE(" + BlobStore.textOf("ob") + ", e.output) AS output FROM experiments e " +
+                "LEFT JOIN blobs cb ON cb.hash = e.code_hash " +
+                "LEFT JOIN blobs ob ON ob.hash = e.output_hash");
+
+        boolean created = !tableExists(stmt, "experiments_fts");
+        // '_' joins identifier parts, so my_list matches as one word
+        stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS experiments_fts USING fts5(title, aim, code, output, " +
+                "content='experiment_text', content_rowid='id', tokenize=\"unicode61 tokenchars '_'\", prefix='2 3')");
+
+        // Old values stay here until applied; applyLog then releases the blobs they no longer share
+        boolean logCreated = !tableExists(stmt, "experiments_fts_log");
+        stmt.execute("CREATE TABLE IF NOT EXISTS experiments_fts_log (" +
+                "seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "id INTEGER NOT NULL, " +      // experiments.id
+                "indexed INTEGER NOT NULL, " + // 1: the old values below are in the index (edit, delete); 0: insert
+                "title TEXT, aim TEXT, code TEXT, code_hash TEXT, input_hash TEXT, output TEXT, output_hash TEXT)");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS experiments_log_insert AFTER INSERT ON experiments BEGIN " +
+                "INSERT INTO experiments_fts_log(id, indexed) VALUES (new.id, 0); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS experiments_log_delete AFTER DELETE ON experiments BEGIN " +
+                "INSERT INTO experiments_fts_log(id, indexed, " + OLD_COLUMNS + ") VALUES (old.id, 1, " + OLD_VALUES + "); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS experiments_log_update " +
+                "AFTER UPDATE OF title, aim, code, output, code_hash, input_hash, output_hash ON experiments BEGIN " +
+                "INSERT INTO experiments_fts_log(id, indexed, " + OLD_COLUMNS + ") VALUES (old.id, 1, " + OLD_VALUES + "); END");
+
+        // Triggers from an earlier build (or put back by one) updated the index directly
+        boolean legacy = false;
+        for (String trigger : LEGACY_TRIGGERS) {
+            if (exists(stmt, "trigger", trigger)) {
+                stmt.execute("DROP TRIGGER " + trigger);
+                legacy = true;
+            }
+        }
+
+        if (created) {
+            stmt.execute("INSERT INTO experiments_fts(experiments_fts, rank) VALUES ('rank', '" + RANK + "')");
+        }
+        if (created || (legacy && !logCreated)) {
+            // Rows that predate the index, or writes that went to both the index and the log
+            stmt.execute(LOG_CLEAR);
+            stmt.execute("INSERT INTO experiments_fts(experiments_fts) VALUES ('rebuild')");
+        }
+    }
+
+    private static boolean tableExists(Statement stmt, String name) throws SQLException {
+        return exists(stmt, "table", name);
+    }
+
+    private static boolean exists(Statement stmt, String type, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = '" + type + "' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Brings the index up to date with the rows changed since it was last applied: removes
+     * what each changed row had indexed, adds the current text of those still present, and
+     * releases the blobs the changes left unreferenced. Call inside a write transaction;
+     * returns whether there was anything to apply.
+     */
+    static boolean applyLog(Database.PooledConnection c) throws SQLException {
+        try (ResultSet rs = c.prepare(LOG_PENDING).executeQuery()) {
+            if (!rs.next() || !rs.getBoolean(1)) return false;
+        }
+        c.prepare(LOG_REMOVE_INDEXED).executeUpdate();
+        c.prepare(LOG_ADD_CURRENT).executeUpdate();
+        BlobStore.release(c, LOG_OLD_HASHES);
+        c.prepare(LOG_CLEAR).executeUpdate();
+        return true;
+    }
+
+    private boolean logPending() throws SQLException {
+        return db.withConnection(c -> {
+            try (ResultSet rs = c.prepare(LOG_PENDING).executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        });
+    }
+
+    // ==========================================
+    // QUERIES
+    // ==========================================
+    /**
+     * Best {@code limit} matches for text typed into the search box. Every word must
+     * match; the last one also matches as a prefix, so results follow the typing.
+     */
+    Result search(String text, int limit) throws SQLException {
+        String match = toMatchExpression(text);
+        if (match.isEmpty()) return new Result(new ArrayList<>(), 0, true);
+        if (logPending()) db.inTransaction(SearchIndex::applyLog);
+        return db.withConnection(c -> {
+            PreparedStatement count = c.prepare(COUNT);
+            count.setString(1, match);
+            int total;
+            try (ResultSet rs = count.executeQuery()) {
+                total = rs.next() ? rs.getInt(1) : 0;
+            }
+            List<Hit> hits = new ArrayList<>();
+            if (total == 0) return new Result(hits, 0, true);
+
+            boolean ranked = total <= MAX_RANKED_MATCHES;
+            PreparedStatement ps = c.prepare(ranked ? RANKED_HITS : UNRANKED_HITS);
+            ps.setString(1, MATCH_OPEN);
+            ps.setString(2, MATCH_CLOSE);
+            ps.setString(3, match);
+            ps.setInt(4, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) hits.add(new Hit(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+            }
+            return new Result(hits, total, ranked);
+        });
+    }
+
+    /**
+     * Turns free text into an FTS5 expression: each whitespace-separated word becomes a
+     * quoted phrase ({@code System.out.println} matches those three tokens in order), so
+     * operators and stray quotes in the input are never parsed as query syntax.
+     */
+    static String toMatchExpression(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder();
+        String[] words = text.trim().split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i].replace("\"", "");
+            if (!hasTokenChar(word)) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('"').append(word).append('"');
+            if (i == words.length - 1 && !Character.isWhitespace(text.charAt(text.length() - 1))) sb.append('*');
+        }
+        return sb.toString();
+    }
+
+    // A word of only punctuation tokenizes to nothing, which FTS5 rejects as a phrase
+    private static boolean hasTokenChar(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char ch = word.charAt(i);
+            if (Character.isLetterOrDigit(ch) || ch == '_') return true;
+        }
+        return false;
+    }
+}
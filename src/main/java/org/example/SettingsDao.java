@@ -0,0 +1,54 @@
+package org.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+// --- Key/value rows of the settings table (student details, logo path) ---
+class SettingsDao {
+
+    private static final String SELECT_ALL = "SELECT key_name, key_value FROM settings";
+    private static final String SELECT_ONE = "SELECT key_value FROM settings WHERE key_name = ?";
+    private static final String UPSERT = "INSERT OR REPLACE INTO settings (key_name, key_value) VALUES (?, ?)";
+
+    private final Database db;
+
+    SettingsDao(Database db) {
+        this.db = db;
+    }
+
+    Map<String, String> loadAll() throws SQLException {
+        return db.withConnection(c -> {
+            Map<String, String> values = new HashMap<>();
+            try (ResultSet rs = c.prepare(SELECT_ALL).executeQuery()) {
+                while (rs.next()) values.put(rs.getString(1), rs.getString(2) != null ? rs.getString(2) : "");
+            }
+            return values;
+        });
+    }
+
+    String get(String key) throws SQLException {
+        return db.withConnection(c -> {
+            PreparedStatement ps = c.prepare(SELECT_ONE);
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        });
+    }
+
+    // All keys in one transaction (one commit instead of one per key)
+    void putAll(Map<String, String> values) throws SQLException {
+        db.inTransaction(c -> {
+            PreparedStatement ps = c.prepare(UPSERT);
+            for (Map.Entry<String, String> e : values.entrySet()) {
+                ps.setString(1, e.getKey());
+                ps.setString(2, e.getValue());
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        });
+    }
+}
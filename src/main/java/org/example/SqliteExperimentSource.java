@@ -0,0 +1,53 @@
+package org.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams experiments straight from the {@code experiments} table on one pooled
+ * connection, which it owns until closed.
+ * <p>
+ * The body cursor is opened before the index query so both read the same
+ * snapshot: SQLite keeps one read transaction open while any statement on the
+ * connection is pending. Bodies are then pulled one row at a time through the
+ * forward-only cursor, so the large code/output columns of an experiment become
+ * garbage as soon as its pages are laid out.
+ */
+class SqliteExperimentSource implements ExperimentSource {
+
+    private static final String BODIES = ExperimentDao.SELECT_FULL_ROWS + ExperimentDao.ORDER;
+    // image_path too, so the renderer can start decoding every screenshot before layout reaches it
+    private static final String INDEX = "SELECT e.id, e.exp_no, e.title, e.date, e.image_path FROM experiments e" + ExperimentDao.ORDER;
+
+    private final Database.PooledConnection conn;
+    private final ResultSet bodies;
+
+    SqliteExperimentSource(Database.PooledConnection conn) throws SQLException {
+        this.conn = conn;
+        PreparedStatement bodyStmt = conn.prepare(BODIES);
+        bodyStmt.setFetchSize(1);
+        this.bodies = bodyStmt.executeQuery();
+    }
+
+    @Override
+    public List<Experiment> index() throws SQLException {
+        List<Experiment> list = new ArrayList<>();
+        try (ResultSet rs = conn.prepare(INDEX).executeQuery()) {
+            while (rs.next()) list.add(ExperimentDao.summaryRow(rs));
+        }
+        return list;
+    }
+
+    @Override
+    public Experiment nextBody() throws SQLException {
+        return bodies.next() ? ExperimentDao.fullRow(bodies) : null;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try { bodies.close(); } finally { conn.close(); }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example;
+
+// --- Student details printed on the title page and running header ---
+class StudentInfo {
+    final String name, regNo, year, logoPath;
+
+    public StudentInfo(String name, String regNo, String year, String logoPath) {
+        this.name = name; this.regNo = regNo; this.year = year; this.logoPath = logoPath;
+    }
+
+    String pdfFileName() {
+        return pdfFileName(regNo);
+    }
+
+    // Anything outside [A-Za-z0-9._-] becomes '_', so a reg no like "../x" or "a/b" stays inside the output directory
+    static String pdfFileName(String regNo) {
+        return "Lab_Record_" + (regNo == null ? "" : regNo.replaceAll("[^A-Za-z0-9._-]", "_")) + ".pdf";
+    }
+}
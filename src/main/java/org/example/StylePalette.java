@@ -0,0 +1,77 @@
+package org.example;
+
+import java.awt.Color;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+
+/**
+ * Every font and colour the record uses, resolved once per JVM.
+ * <p>
+ * {@link FontFactory#getFont} resolves the face and builds a new {@link Font} on every
+ * call; doing that per token and per cell dominated allocation on large records.
+ * The fonts here already carry their resolved BaseFont, so layout never looks them up
+ * again. iText fonts are technically mutable: treat these as read-only, they are
+ * shared by every render on every thread.
+ */
+final class StylePalette {
+
+    static final StylePalette DEFAULT = new StylePalette();
+
+    // --- Colours ---
+    final Color keyword = new Color(0, 0, 255);
+    final Color string = new Color(163, 21, 21);
+    final Color comment = new Color(0, 128, 0);
+    final Color annotation = new Color(100, 100, 100);
+    final Color lineNumber = new Color(150, 150, 150);
+    final Color codeBackground = new Color(245, 245, 245);
+    final Color outputBackground = new Color(240, 240, 240);
+    final Color border = Color.GRAY;
+
+    // --- Title page ---
+    final Font titleLarge = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+    final Font titleMedium = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 20);
+    final Font titleRegular = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    final Font titleSmall = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    final Font infoLabel = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+
+    // --- Index table ---
+    final Font indexTitle = titleLarge;
+    final Font tableHeader = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11);
+    final Font tableCell = titleSmall;
+
+    // --- Experiment sections ---
+    final Font experimentTitle = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
+    final Font experimentDate = tableHeader;
+    final Font sectionHeader = infoLabel;
+    final Font body = FontFactory.getFont(FontFactory.HELVETICA, 11);
+
+    // --- Code listings and output boxes ---
+    final Font code = FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, Color.BLACK);
+    final Font codeKeyword = FontFactory.getFont(FontFactory.COURIER, 10, Font.BOLD, keyword);
+    final Font codeString = FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, string);
+    final Font codeComment = FontFactory.getFont(FontFactory.COURIER, 10, Font.ITALIC, comment);
+    final Font codeAnnotation = FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, annotation);
+    final Font codeLineNumber = FontFactory.getFont(FontFactory.COURIER, 10, Font.NORMAL, lineNumber);
+    final Font codeElision = FontFactory.getFont(FontFactory.COURIER, 10, Font.ITALIC, lineNumber);
+    final Font codeCaption = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 9, Font.NORMAL, lineNumber);
+    final Font output = code;
+
+    // --- Running header / page numbers ---
+    final Font pageHeader = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 9);
+
+    private StylePalette() {}
+
+    // Font for a {@link JavaLexer} token kind
+    Font codeFont(int tokenKind) {
+        switch (tokenKind) {
+            case JavaLexer.KEYWORD: return codeKeyword;
+            case JavaLexer.STRING:
+            case JavaLexer.CHAR:
+            case JavaLexer.TEXT_BLOCK: return codeString;
+            case JavaLexer.COMMENT: return codeComment;
+            case JavaLexer.ANNOTATION: return codeAnnotation;
+            default: return code;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Adversarial inputs for {@link JavaLexer}: every case pins the kind and [start, end) of each
+ * highlighted span, and the state returned at the end of a chunk. Throughput on the same kind
+ * of input is measured by {@code HighlightBenchmark} (corpus {@code adversarial}) in benchmarks/.
+ */
+class JavaLexerTest {
+
+    private static final String[] KINDS = {"?", "KEYWORD", "STRING", "CHAR", "TEXT_BLOCK", "COMMENT", "ANNOTATION"};
+
+    // Spans as "KIND start-end", so a failure shows the whole token list
+    private static List<String> spans(JavaLexer.Tokens tokens) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < tokens.count(); i++) out.add(KINDS[tokens.kind(i)] + " " + tokens.start(i) + "-" + tokens.end(i));
+        return out;
+    }
+
+    private static void assertSpans(String src, String... expected) {
+        assertEquals(List.of(expected), spans(JavaLexer.tokenize(src)), () -> src.length() > 120 ? src.substring(0, 120) + "..." : src);
+    }
+
+    @Test
+    void unterminatedStringStopsAtEndOfLine() {
+        assertSpans("String s = \"abc\nint x;", "STRING 11-15", "KEYWORD 16-19");
+    }
+
+    @Test
+    void stringEndingInBackslashStopsAtEndOfLine() {
+        assertSpans("s = \"a\\\nint", "STRING 4-7", "KEYWORD 8-11");
+    }
+
+    @Test
+    void unterminatedBlockCommentRunsToEndAndCarriesState() {
+        String src = "int a; /* never closed\nclass C {}";
+        assertSpans(src, "KEYWORD 0-3", "COMMENT 7-" + src.length());
+
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        assertEquals(JavaLexer.STATE_BLOCK_COMMENT, JavaLexer.tokenize(src, 0, src.length(), JavaLexer.STATE_NORMAL, tokens));
+    }
+
+    @Test
+    void resumesInsideBlockComment() {
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        String src = "still comment */ int";
+        assertEquals(JavaLexer.STATE_NORMAL, JavaLexer.tokenize(src, 0, src.length(), JavaLexer.STATE_BLOCK_COMMENT, tokens));
+        assertEquals(List.of("COMMENT 0-16", "KEYWORD 17-20"), spans(tokens));
+    }
+
+    @Test
+    void commentMarkersInsideStringsAreText() {
+        assertSpans("s = \"/* // \"; int", "STRING 4-12", "KEYWORD 14-17");
+    }
+
+    @Test
+    void textBlockWithQuotesAndEscapedDelimiter() {
+        String src = "String t = \"\"\"\n    say \"hi\" and \\\"\"\" done\n    \"\"\"; int";
+        assertSpans(src, "TEXT_BLOCK 11-49", "KEYWORD 51-54");
+    }
+
+    @Test
+    void unterminatedTextBlockCarriesState() {
+        String src = "\"\"\" open\nclass";
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        assertEquals(JavaLexer.STATE_TEXT_BLOCK, JavaLexer.tokenize(src, 0, src.length(), JavaLexer.STATE_NORMAL, tokens));
+        assertEquals(List.of("TEXT_BLOCK 0-" + src.length()), spans(tokens));
+    }
+
+    @Test
+    void unicodeEscapesInLiterals() {
+        // The lexer sees the escapes as written: a backslash, 'u' and four hex digits
+        assertSpans("char c = '\\u0041'; String q = \"\\u0022\";", "KEYWORD 0-4", "CHAR 9-17", "STRING 30-38");
+    }
+
+    @Test
+    void charLiteralsContainingQuotes() {
+        assertSpans("c = '\"'; d = '\\''; s = \"'\";", "CHAR 4-7", "CHAR 13-17", "STRING 23-26");
+    }
+
+    @Test
+    void nestedGenerics() {
+        assertSpans("Map<String, List<Map<Integer, int[]>>> m = new HashMap<>();", "KEYWORD 30-33", "KEYWORD 43-46");
+    }
+
+    @Test
+    void annotationTypeDeclarationAndQualifiedAnnotation() {
+        assertSpans("public @interface Marker { @java.lang.Deprecated int value(); }",
+                "KEYWORD 0-6", "KEYWORD 7-17", "ANNOTATION 27-48", "KEYWORD 49-52");
+    }
+
+    @Test
+    void keywordsOnlyMatchWholeIdentifiers() {
+        assertSpans("$int int_ _int int1 1int Int");
+    }
+
+    @Test
+    void longUnterminatedLinesAreOneSpanEach() {
+        String escapes = "\\\"".repeat(100_000);
+        String src = "s = \"" + escapes + "\n/* " + "*".repeat(100_000);
+        int lineBreak = 5 + escapes.length();
+        assertSpans(src, "STRING 4-" + lineBreak, "COMMENT " + (lineBreak + 1) + "-" + src.length());
+    }
+}
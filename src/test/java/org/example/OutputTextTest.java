@@ -0,0 +1,76 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link OutputText} budgets: the head/tail marker, the long-line cut, and the promise the
+ * render path and the fragment cache keys rely on, that bounding stored text again changes
+ * nothing.
+ */
+class OutputTextTest {
+
+    private static String lines(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i <= to; i++) sb.append("L").append(i).append('\n');
+        return sb.toString();
+    }
+
+    private static void assertIdempotent(OutputText budget, String text) {
+        String once = budget.bound(text);
+        assertEquals(once, budget.bound(once), () -> "budget " + budget.signature());
+    }
+
+    @Test
+    void markerCountsEveryOmittedLine() {
+        // L4..L8 are dropped: the marker takes the slot of the oldest kept tail line
+        assertEquals(lines(1, 3) + "... 5 lines omitted ...\n" + lines(9, 10), new OutputText(3, 2).bound(lines(1, 10)));
+    }
+
+    @Test
+    void textWithinBudgetPlusMarkerSlotIsKept() {
+        // Eliding a single line would only swap it for the marker
+        assertEquals(lines(1, 6), new OutputText(3, 2).bound(lines(1, 6)));
+    }
+
+    @Test
+    void lastLineWithoutNewlineIsKept() {
+        assertEquals(lines(1, 3) + "... 5 lines omitted ...\nL9\nL10", new OutputText(3, 2).bound(lines(1, 9) + "L10"));
+    }
+
+    @Test
+    void lineAtTheLimitIsNotCut() {
+        String line = "x".repeat(OutputText.MAX_LINE_CHARS);
+        assertEquals(line + "\nnext", OutputText.DEFAULT.bound(line + "\nnext"));
+    }
+
+    @Test
+    void longLineIsCutWithRoomForItsNote() {
+        String cut = OutputText.DEFAULT.bound("x".repeat(OutputText.MAX_LINE_CHARS + 500) + "\nnext");
+        int kept = OutputText.MAX_LINE_CHARS - 64;
+        String expected = "x".repeat(kept) + " ... (" + (OutputText.MAX_LINE_CHARS + 500 - kept) + " more characters)\nnext";
+        assertEquals(expected, cut);
+        assertTrue(cut.indexOf('\n') <= OutputText.MAX_LINE_CHARS);
+    }
+
+    @Test
+    void tabsAndNonBreakingSpacesAreCleaned() {
+        assertEquals("a    b c", OutputText.DEFAULT.bound("a\tb" + (char) 0xA0 + "c"));
+    }
+
+    @Test
+    void boundingTwiceChangesNothing() {
+        String longLines = ("y".repeat(5000) + "\n").repeat(50);
+        String mixed = lines(1, 2000) + "z".repeat(3000) + "\tend";
+        for (OutputText budget : new OutputText[] {OutputText.DEFAULT, new OutputText(3, 2), new OutputText(0, 4),
+                new OutputText(5, 0), new OutputText(1)}) {
+            assertIdempotent(budget, lines(1, 100_000));
+            assertIdempotent(budget, longLines);
+            assertIdempotent(budget, mixed);
+            assertIdempotent(budget, lines(1, 6));
+            assertIdempotent(budget, "");
+        }
+    }
+}